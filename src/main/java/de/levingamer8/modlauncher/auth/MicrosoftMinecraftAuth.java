@@ -1,6 +1,7 @@
 package de.levingamer8.modlauncher.auth;
 
 import com.google.gson.*;
+import de.levingamer8.modlauncher.core.HttpTransport;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URLEncoder;
@@ -17,13 +18,11 @@ public final class MicrosoftMinecraftAuth {
     private static final String CLIENT_ID = "00000000441cc96b";
     private static final String SCOPE = "service::user.auth.xboxlive.com::MBI_SSL";
 
-    private final HttpClient http;
+    private final HttpTransport http;
     private final Gson gson = new GsonBuilder().create();
 
     public MicrosoftMinecraftAuth() {
-        this.http = HttpClient.newBuilder()
-                .followRedirects(HttpClient.Redirect.NORMAL)
-                .build();
+        this.http = HttpTransport.shared();
     }
 
     // Ergebnis, das du direkt in deinen Launcher mappen kannst
@@ -84,11 +83,12 @@ public final class MicrosoftMinecraftAuth {
             // Laut Implementierung wird auch mal mit Query ?client_id=... gepostet – beides klappt.
             // Wir machen es clean ohne Query.
             HttpRequest req = HttpRequest.newBuilder(URI.create("https://login.live.com/oauth20_token.srf"))
+                    .timeout(HttpTransport.REQUEST_TIMEOUT)
                     .header("Content-Type", "application/x-www-form-urlencoded")
                     .POST(HttpRequest.BodyPublishers.ofString(body))
                     .build();
 
-            HttpResponse<String> resp = http.send(req, HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> resp = http.sendText(req);
             JsonObject j = JsonParser.parseString(resp.body()).getAsJsonObject();
 
             // Wenn success: enthält access_token
@@ -178,10 +178,11 @@ public final class MicrosoftMinecraftAuth {
 
     private JsonObject postForm(String url, String body) throws IOException, InterruptedException {
         HttpRequest req = HttpRequest.newBuilder(URI.create(url))
+                .timeout(HttpTransport.REQUEST_TIMEOUT)
                 .header("Content-Type", "application/x-www-form-urlencoded")
                 .POST(HttpRequest.BodyPublishers.ofString(body))
                 .build();
-        HttpResponse<String> resp = http.send(req, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> resp = http.sendText(req);
         if (resp.statusCode() < 200 || resp.statusCode() >= 300) {
             throw new IOException("HTTP " + resp.statusCode() + " POST " + url + " => " + resp.body());
         }
@@ -190,12 +191,13 @@ public final class MicrosoftMinecraftAuth {
 
     private JsonObject postJson(String url, String json) throws IOException, InterruptedException {
         HttpRequest req = HttpRequest.newBuilder(URI.create(url))
+                .timeout(HttpTransport.REQUEST_TIMEOUT)
                 .header("Content-Type", "application/json")
                 .header("Accept", "application/json")
                 .header("x-xbl-contract-version", "1")
                 .POST(HttpRequest.BodyPublishers.ofString(json))
                 .build();
-        HttpResponse<String> resp = http.send(req, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> resp = http.sendText(req);
         if (resp.statusCode() < 200 || resp.statusCode() >= 300) {
             throw new IOException("HTTP " + resp.statusCode() + " POST " + url + " => " + resp.body());
         }
@@ -204,11 +206,12 @@ public final class MicrosoftMinecraftAuth {
 
     private JsonObject getJson(String url, String bearerToken) throws IOException, InterruptedException {
         HttpRequest req = HttpRequest.newBuilder(URI.create(url))
+                .timeout(HttpTransport.REQUEST_TIMEOUT)
                 .header("Accept", "application/json")
                 .header("Authorization", "Bearer " + bearerToken)
                 .GET()
                 .build();
-        HttpResponse<String> resp = http.send(req, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> resp = http.sendText(req);
         if (resp.statusCode() < 200 || resp.statusCode() >= 300) {
             throw new IOException("HTTP " + resp.statusCode() + " GET " + url + " => " + resp.body());
         }
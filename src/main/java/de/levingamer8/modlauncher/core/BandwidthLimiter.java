@@ -0,0 +1,127 @@
+package de.levingamer8.modlauncher.core;
+
+/**
+ * Globales Bandbreitenlimit (Token-Bucket) + Vorrang nach {@link DownloadPriority}.
+ *
+ * Zwei Stellen:
+ * - {@link #admit}: vor jedem Datei-Download. Solange höher priorisierte Downloads laufen oder warten
+ *   (und kurz danach, damit Lücken zwischen zwei Libraries nicht sofort gefüllt werden), startet nichts Niedrigeres.
+ *   Laufende Downloads werden nicht abgebrochen.
+ * - {@link #consume}: pro gelesenem Block. Bei gesetztem Limit bekommen wartende höhere Prioritäten
+ *   die Tokens zuerst; ohne Limit kostet das nichts.
+ *
+ * Das Limit ist global (eine Leitung), gesetzt wird es aus dem aktiven Profil.
+ */
+public final class BandwidthLimiter {
+
+    /** So lange nach dem Ende eines Downloads gilt die Priorität noch als "aktiv". */
+    private static final long GRACE_MS = 250;
+    /** Kleinster Bucket, damit auch bei winzigem Limit ganze Blöcke durchgehen. */
+    private static final long MIN_BURST = 64 * 1024;
+
+    private static final DownloadPriority[] LEVELS = DownloadPriority.values();
+
+    private final int[] active = new int[LEVELS.length];
+    private final int[] admitting = new int[LEVELS.length];
+    private final int[] consuming = new int[LEVELS.length];
+    private final long[] lastEnd = new long[LEVELS.length];
+
+    private long bytesPerSecond; // 0 = unbegrenzt
+    private double tokens;
+    private long refillAt = System.nanoTime();
+
+    /** kbit/s wie im Profil; 0 oder kleiner = kein Limit. */
+    public synchronized void setLimitKbps(int kbps) {
+        long bps = kbps <= 0 ? 0 : kbps * 1000L / 8;
+        if (bps == bytesPerSecond) return;
+        bytesPerSecond = bps;
+        tokens = Math.min(tokens, burst());
+        notifyAll();
+    }
+
+    public synchronized long bytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    /** Freigabe eines Download-Slots; für try-with-resources. */
+    public interface Ticket extends AutoCloseable {
+        @Override void close();
+    }
+
+    /** Wartet, bis keine wichtigere Priorität mehr läuft oder ansteht. */
+    public Ticket admit(DownloadPriority p) throws InterruptedException {
+        int lvl = p.ordinal();
+        synchronized (this) {
+            admitting[lvl]++;
+            try {
+                long waitMs;
+                while ((waitMs = blockedFor(lvl)) > 0) {
+                    wait(waitMs);
+                }
+                active[lvl]++;
+            } finally {
+                admitting[lvl]--;
+            }
+        }
+        return () -> {
+            synchronized (this) {
+                active[lvl]--;
+                lastEnd[lvl] = System.currentTimeMillis();
+                notifyAll();
+            }
+        };
+    }
+
+    /** n gelesene Bytes verbuchen; blockiert, wenn das Limit erreicht ist. */
+    public void consume(long n, DownloadPriority p) throws InterruptedException {
+        int lvl = p.ordinal();
+        synchronized (this) {
+            if (bytesPerSecond <= 0) return;
+            consuming[lvl]++;
+            try {
+                while (true) {
+                    refill();
+                    if (bytesPerSecond <= 0) return;
+                    if (tokens >= 0 && !higherWaiting(consuming, lvl)) {
+                        tokens -= n; // darf ins Minus gehen, die nächsten warten dann entsprechend
+                        return;
+                    }
+                    long ms = tokens < 0 ? (long) Math.ceil(-tokens * 1000 / bytesPerSecond) : 5;
+                    wait(Math.max(1, ms));
+                }
+            } finally {
+                consuming[lvl]--;
+                notifyAll();
+            }
+        }
+    }
+
+    /** 0 = darf los, sonst ms bis zur nächsten Prüfung. */
+    private long blockedFor(int lvl) {
+        long now = System.currentTimeMillis();
+        long wait = 0;
+        for (int h = 0; h < lvl; h++) {
+            if (active[h] > 0 || admitting[h] > 0) return GRACE_MS;
+            long left = lastEnd[h] + GRACE_MS - now;
+            if (left > wait) wait = left;
+        }
+        return wait;
+    }
+
+    private static boolean higherWaiting(int[] counts, int lvl) {
+        for (int h = 0; h < lvl; h++) {
+            if (counts[h] > 0) return true;
+        }
+        return false;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(burst(), tokens + (now - refillAt) / 1e9 * bytesPerSecond);
+        refillAt = now;
+    }
+
+    private long burst() {
+        return Math.max(MIN_BURST, bytesPerSecond);
+    }
+}
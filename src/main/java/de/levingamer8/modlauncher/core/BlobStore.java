@@ -0,0 +1,106 @@
+package de.levingamer8.modlauncher.core;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Globaler, inhaltsadressierter Speicher für Pack-Dateien: shared/blobs/<ab>/<sha256>.
+ *
+ * Generationen bekommen Hardlinks auf die Blobs (Fallback: Kopie, z.B. anderes Laufwerk), game/ für Archive
+ * (Mods, Packs) ebenfalls, für Configs u.ä. Kopien (siehe {@link PackGenerations#linkable}). Ein Mod, den
+ * mehrere Profile nutzen, wird damit nur einmal geladen und liegt nur einmal auf der Platte. Ist ein Blob
+ * trotzdem verändert (In-place-Änderung über einen Link, Platte), merkt das der Index und der Blob wird
+ * verworfen statt weiterverteilt.
+ *
+ * Eine Instanz pro Store-Ordner ({@link #of}), damit Locks und Index für alle laufenden Updates gelten.
+ */
+public class BlobStore {
+
+    private static final Map<Path, BlobStore> SHARED = new ConcurrentHashMap<>();
+
+    private final Path root;
+    private final FileIndex index;
+    private final ConcurrentHashMap<String, Object> locks = new ConcurrentHashMap<>();
+
+    private BlobStore(Path root) {
+        this.root = root;
+        this.index = FileIndex.load(root, root.resolve(".index.json"));
+    }
+
+    public static BlobStore of(Path root) throws IOException {
+        Path r = root.toAbsolutePath().normalize();
+        Files.createDirectories(r.resolve("tmp"));
+        return SHARED.computeIfAbsent(r, BlobStore::new);
+    }
+
+    public Path blobPath(String sha256) {
+        String h = sha256.toLowerCase(Locale.ROOT);
+        return root.resolve(h.substring(0, 2)).resolve(h);
+    }
+
+    /** true, wenn der Blob existiert und (laut Index bzw. neu gehasht) noch zum Hash passt. */
+    public boolean has(String sha256) throws IOException {
+        Path blob = blobPath(sha256);
+        if (!Files.exists(blob)) return false;
+        if (index.sha256(blob).equalsIgnoreCase(sha256)) return true;
+
+        // kaputt oder über einen Hardlink verändert -> weg damit
+        Files.deleteIfExists(blob);
+        index.remove(blob);
+        return false;
+    }
+
+    /**
+     * Sorgt dafür, dass der Blob vorhanden ist; lädt ihn sonst von urls (Mirrors, resumable, Hash beim Streamen).
+     * Gleiche Hashes werden nie parallel geladen.
+     *
+     * @return true, wenn tatsächlich heruntergeladen wurde
+     */
+    public boolean ensure(String sha256, List<String> urls, HttpClientEx http) throws IOException, InterruptedException {
+        synchronized (lockFor(sha256)) {
+            if (has(sha256)) return false;
+
+            String h = sha256.toLowerCase(Locale.ROOT);
+            Path tmp = root.resolve("tmp").resolve(h + ".part");
+            http.downloadToFile(urls, tmp, "SHA-256", sha256);
+
+            Path blob = blobPath(sha256);
+            FileUtil.atomicReplace(tmp, blob);
+            index.put(blob, h);
+            return true;
+        }
+    }
+
+    /**
+     * Übernimmt eine Datei aus einer Instanz in den Store, damit andere Profile sie ohne Download bekommen.
+     * Archive als Hardlink (wie in game/ auch), alles andere als Kopie – sonst landen In-place-Änderungen
+     * an Configs im Store. Dabei gehasht: passt der Inhalt nicht mehr zu sha256, wird nichts übernommen. Best effort.
+     */
+    public void adopt(String sha256, Path file) {
+        synchronized (lockFor(sha256)) {
+            Path blob = blobPath(sha256);
+            if (Files.exists(blob)) return;
+            try {
+                String got = PackGenerations.linkable(file.getFileName().toString())
+                        ? FileUtil.linkVerified(file, blob, "SHA-256", sha256)
+                        : FileUtil.copyVerified(file, blob, "SHA-256", sha256);
+                if (got.equalsIgnoreCase(sha256)) index.put(blob, got);
+            } catch (IOException ignored) {
+                // Platte voll o.ä.: dann eben beim nächsten Bedarf laden
+            }
+        }
+    }
+
+    /** Mehrere Updates teilen sich den Index -> nicht gleichzeitig schreiben. */
+    public synchronized void save() throws IOException {
+        index.save();
+    }
+
+    private Object lockFor(String sha256) {
+        return locks.computeIfAbsent(sha256.toLowerCase(Locale.ROOT), k -> new Object());
+    }
+}
@@ -0,0 +1,109 @@
+package de.levingamer8.modlauncher.core;
+
+import java.io.InterruptedIOException;
+import java.nio.channels.ClosedByInterruptException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * CompletableFuture für eine blockierende Aufgabe auf eigenem Thread, bei der cancel(true) wirklich abbricht:
+ * der Thread wird unterbrochen (ein normales CompletableFuture tut das nicht).
+ *
+ * Unterbrechung reicht bis ganz unten durch: HttpClient.send bricht den Request ab, das Lesen des Bodys
+ * und Datei-Channels (Hashing, Schreiben) werfen, Retry/Backoff und Host-Slots warten nicht weiter.
+ *
+ * {@link #stopped()} wird erst fertig, wenn der Thread wirklich durch ist (Aufräumen, Lock frei) –
+ * das Future selbst ist nach cancel() sofort "fertig".
+ *
+ * Der Arbeits-Thread ist an den Task gebunden; Worker-Pools reichen die Bindung per {@link #bind()} weiter.
+ * Darüber unterscheidet {@link #cancelledByUser()} den echten Abbruch von anderen Interrupts
+ * (z.B. ein Pool, der nach dem Fehler eines Geschwister-Downloads seine Worker stoppt).
+ */
+public final class CancellableTask<T> extends CompletableFuture<T> {
+
+    @FunctionalInterface
+    public interface Work<T> {
+        T run() throws Exception;
+    }
+
+    private static final ThreadLocal<CancellableTask<?>> CURRENT = new ThreadLocal<>();
+
+    private final CompletableFuture<Void> stopped = new CompletableFuture<>();
+    private volatile Thread runner;
+
+    private CancellableTask() {}
+
+    public static <T> CancellableTask<T> start(String threadName, Work<T> work) {
+        CancellableTask<T> task = new CancellableTask<>();
+        Thread t = new Thread(() -> {
+            CURRENT.set(task);
+            try {
+                task.complete(work.run());
+            } catch (Throwable e) {
+                task.completeExceptionally(e);
+            } finally {
+                task.runner = null;
+                task.stopped.complete(null);
+            }
+        }, threadName);
+        t.setDaemon(true);
+        task.runner = t;
+        t.start();
+        return task;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        boolean cancelled = super.cancel(mayInterruptIfRunning);
+        Thread t = runner;
+        if (cancelled && t != null) t.interrupt();
+        return cancelled;
+    }
+
+    /** Fertig, sobald der Arbeits-Thread beendet ist (auch nach cancel). */
+    public CompletableFuture<Void> stopped() {
+        return stopped.copy();
+    }
+
+    /** Task, an den der aktuelle Thread gebunden ist (Arbeits-Thread oder per {@link #bind()}), sonst null. */
+    public static CancellableTask<?> current() {
+        return CURRENT.get();
+    }
+
+    /** Bindet den aktuellen Thread (z.B. einen Pool-Worker) an diesen Task; für try-with-resources. */
+    public Scope bind() {
+        CancellableTask<?> previous = CURRENT.get();
+        CURRENT.set(this);
+        return () -> {
+            if (previous == null) CURRENT.remove();
+            else CURRENT.set(previous);
+        };
+    }
+
+    /** Hat der User den Task des aktuellen Threads per cancel() abgebrochen? Ungebunden = nein. */
+    public static boolean cancelledByUser() {
+        CancellableTask<?> task = CURRENT.get();
+        return task != null && task.isCancelled();
+    }
+
+    /**
+     * Ist t die Folge eines Abbruchs (Interrupt) statt eines echten Fehlers?
+     * Gilt für jeden Interrupt – ob der User abgebrochen hat, sagt nur {@link #cancelledByUser()}.
+     */
+    public static boolean isCancellation(Throwable t) {
+        for (Throwable c = t; c != null; c = c.getCause()) {
+            if (c instanceof InterruptedException
+                    || c instanceof InterruptedIOException
+                    || c instanceof ClosedByInterruptException
+                    || c instanceof CancellationException) {
+                return true;
+            }
+        }
+        return Thread.currentThread().isInterrupted();
+    }
+
+    /** Rückgängig machen von {@link #bind()}; für try-with-resources. */
+    public interface Scope extends AutoCloseable {
+        @Override void close();
+    }
+}
@@ -0,0 +1,105 @@
+package de.levingamer8.modlauncher.core;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Circuit Breaker pro Host: nach FAILURE_THRESHOLD Fehlern in Folge wird der Host für OPEN_FOR gesperrt
+ * und Requests schlagen sofort fehl, statt pro Datei in den Timeout zu laufen.
+ * Danach darf genau ein Probe-Request durch (half-open); klappt er, ist der Host wieder offen.
+ */
+public class CircuitBreaker {
+
+    /** Host ist gesperrt – wird nicht wiederholt, damit z.B. ein anderer Mirror dran kommt. */
+    public static class OpenException extends IOException {
+        public OpenException(String host, long remainingMillis) {
+            super("Host " + host + " nicht erreichbar, vorübergehend gesperrt (noch " + (remainingMillis / 1000 + 1) + "s)");
+        }
+    }
+
+    private static final int FAILURE_THRESHOLD = 5;
+    private static final Duration OPEN_FOR = Duration.ofSeconds(30);
+
+    private static final class State {
+        int failures;
+        long openUntil;
+        boolean probing;
+    }
+
+    private final ConcurrentHashMap<String, State> hosts = new ConcurrentHashMap<>();
+    private final int failureThreshold;
+    private final Duration openFor;
+
+    public CircuitBreaker() {
+        this(FAILURE_THRESHOLD, OPEN_FOR);
+    }
+
+    /** Für Tests: eigene Schwelle/Sperrdauer. */
+    CircuitBreaker(int failureThreshold, Duration openFor) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openFor = openFor;
+    }
+
+    /**
+     * Vor dem Request aufrufen; wirft OpenException, solange der Host gesperrt ist.
+     *
+     * @return true, wenn dieser Request die Probe ist (half-open). Der Aufrufer muss dann in jedem Fall
+     *         success, failure oder {@link #abort} melden, sonst bleibt der Host gesperrt.
+     */
+    public boolean check(String host) throws OpenException {
+        State s = state(host);
+        synchronized (s) {
+            if (s.failures < failureThreshold) return false;
+
+            long now = System.currentTimeMillis();
+            if (now < s.openUntil || s.probing) {
+                throw new OpenException(host, Math.max(0, s.openUntil - now));
+            }
+            s.probing = true; // half-open: dieser Request ist die Probe
+            return true;
+        }
+    }
+
+    /**
+     * Probe ohne Ergebnis beendet (Abbruch/Interrupt, Programmfehler): zählt weder als Erfolg noch als Fehler,
+     * der nächste Request darf wieder proben.
+     */
+    public void abort(String host) {
+        State s = state(host);
+        synchronized (s) {
+            s.probing = false;
+        }
+    }
+
+    public void success(String host) {
+        State s = state(host);
+        synchronized (s) {
+            s.failures = 0;
+            s.probing = false;
+        }
+    }
+
+    public void failure(String host) {
+        State s = state(host);
+        synchronized (s) {
+            s.failures++;
+            s.probing = false;
+            if (s.failures >= failureThreshold) {
+                s.openUntil = System.currentTimeMillis() + openFor.toMillis();
+            }
+        }
+    }
+
+    public boolean isOpen(String host) {
+        State s = state(host);
+        synchronized (s) {
+            return s.failures >= failureThreshold && System.currentTimeMillis() < s.openUntil;
+        }
+    }
+
+    private State state(String host) {
+        return hosts.computeIfAbsent(host == null ? "" : host.toLowerCase(Locale.ROOT), h -> new State());
+    }
+}
@@ -0,0 +1,63 @@
+package de.levingamer8.modlauncher.core;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpHeaders;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Komprimierte Text-Antworten (JSON) entpacken, während gelesen wird.
+ *
+ * Der JDK-HttpClient verhandelt kein Content-Encoding; wir schicken Accept-Encoding selbst und
+ * dekodieren hier. Nur gzip/deflate – Brotli gibt es im JDK nicht, also bieten wir es auch nicht an.
+ * Datei-Downloads laufen bewusst ohne (Hash über die Originalbytes, Range/Resume).
+ */
+final class ContentEncoding {
+
+    private ContentEncoding() {}
+
+    static final String ACCEPT = "gzip, deflate";
+
+    /** Content-Encoding auflösen; zusätzlich werden vorkomprimierte Bodies ohne passenden Header erkannt. */
+    static InputStream decode(InputStream raw, HttpHeaders headers) throws IOException {
+        String enc = headers.firstValue("Content-Encoding").orElse("identity").trim().toLowerCase(Locale.ROOT);
+        InputStream in = switch (enc) {
+            case "", "identity" -> raw;
+            case "gzip", "x-gzip" -> new GZIPInputStream(raw, 64 * 1024);
+            case "deflate" -> new InflaterInputStream(raw);
+            default -> throw new IOException("Nicht unterstütztes Content-Encoding: " + enc);
+        };
+        return sniffGzip(in);
+    }
+
+    /** z.B. eine .gz, die der Server als application/gzip ausliefert – JSON fängt nie mit 0x1f 0x8b an. */
+    private static InputStream sniffGzip(InputStream in) throws IOException {
+        BufferedInputStream b = new BufferedInputStream(in, 64 * 1024);
+        b.mark(2);
+        int b0 = b.read();
+        int b1 = b.read();
+        b.reset();
+        if (b0 == 0x1f && b1 == 0x8b) return new GZIPInputStream(b, 64 * 1024);
+        return b;
+    }
+
+    /** charset aus Content-Type, sonst UTF-8 (JSON-Standard). */
+    static Charset charset(HttpHeaders headers) {
+        String ct = headers.firstValue("Content-Type").orElse("");
+        for (String part : ct.split(";")) {
+            String p = part.trim();
+            if (!p.regionMatches(true, 0, "charset=", 0, 8)) continue;
+            try {
+                return Charset.forName(p.substring(8).replace("\"", "").trim());
+            } catch (Exception ignored) {
+                break;
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+}
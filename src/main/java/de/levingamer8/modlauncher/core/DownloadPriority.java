@@ -0,0 +1,38 @@
+package de.levingamer8.modlauncher.core;
+
+/**
+ * Wichtigkeit eines Downloads für {@link BandwidthLimiter}. Reihenfolge = Rang (erste = wichtigste).
+ *
+ * Wie bei {@link DownloadProgress} hängt die Priorität am Thread ({@link #bind()}),
+ * damit Installer und Services keine zusätzlichen Parameter durchreichen müssen.
+ */
+public enum DownloadPriority {
+    /** Ohne das startet das Spiel nicht: Client-Jar, Libraries, Loader, Java. */
+    LAUNCH_CRITICAL,
+    /** Was der Nutzer gerade angestoßen hat, aber nicht sofort braucht: Mods, Assets, Overrides. */
+    FOREGROUND,
+    /** Vorab-Laden / Auffrischen im Hintergrund; wartet, solange anderes läuft. */
+    BACKGROUND;
+
+    private static final ThreadLocal<DownloadPriority> CURRENT = new ThreadLocal<>();
+
+    /** Priorität des aktuellen Threads; ungebunden = FOREGROUND. */
+    public static DownloadPriority current() {
+        DownloadPriority p = CURRENT.get();
+        return p == null ? FOREGROUND : p;
+    }
+
+    public Scope bind() {
+        DownloadPriority previous = CURRENT.get();
+        CURRENT.set(this);
+        return () -> {
+            if (previous == null) CURRENT.remove();
+            else CURRENT.set(previous);
+        };
+    }
+
+    /** Rückgängig machen von {@link #bind()}; für try-with-resources. */
+    public interface Scope extends AutoCloseable {
+        @Override void close();
+    }
+}
@@ -0,0 +1,247 @@
+package de.levingamer8.modlauncher.core;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Byte-genauer Fortschritt über alle Download-Pfade, aufgeteilt in Phasen
+ * (z.B. "Mods", "Libraries", "Java").
+ *
+ * Die Download-Schicht (HttpClientEx) meldet Bytes an die Phase, die am aktuellen Thread
+ * gebunden ist ({@link Phase#bind()}) – dadurch muss nicht jede Installer-Methode einen Listener
+ * durchreichen. Ist die Gesamtgröße einer Phase vorab bekannt (Manifest-size), wird sie gesetzt;
+ * sonst wächst sie mit den Content-Length-Headern der gestarteten Downloads.
+ *
+ * Listener werden höchstens alle NOTIFY_INTERVAL aufgerufen (plus bei Phasenende),
+ * und zwar vom Download-Thread aus – UI-Listener müssen selbst auf den FX-Thread wechseln.
+ */
+public final class DownloadProgress {
+
+    public record PhaseStats(String name, long bytesDone, long bytesTotal, int filesDone, int filesTotal) {}
+
+    /** bytesTotal -1 = unbekannt; eta null = noch keine Schätzung. */
+    public record Snapshot(String phase, long bytesDone, long bytesTotal, double bytesPerSecond,
+                           Duration eta, List<PhaseStats> phases) {
+        /** 0..1, oder -1 wenn die Gesamtgröße unbekannt ist. */
+        public double fraction() {
+            if (bytesTotal <= 0) return -1;
+            return Math.min(1.0, (double) bytesDone / bytesTotal);
+        }
+    }
+
+    @FunctionalInterface
+    public interface Listener {
+        void onProgress(Snapshot snapshot);
+    }
+
+    public static final Listener NONE = s -> {};
+
+    private static final long NOTIFY_INTERVAL_MS = 100;
+    private static final long RATE_SAMPLE_MS = 500;
+    /** Glättung der Rate; klein = ruhigere ETA. */
+    private static final double RATE_ALPHA = 0.25;
+
+    private static final ThreadLocal<Phase> BOUND = new ThreadLocal<>();
+
+    private final Listener listener;
+    private final Map<String, Phase> phases = new LinkedHashMap<>();
+    private volatile String currentPhase;
+
+    private long lastNotify;
+    private long sampleAt = System.currentTimeMillis();
+    private long sampleBytes;
+    private double rate = -1; // bytes/s
+
+    public DownloadProgress(Listener listener) {
+        this.listener = listener == null ? NONE : listener;
+    }
+
+    /** Phase anlegen bzw. holen und als aktuelle Phase markieren. */
+    public synchronized Phase phase(String name) {
+        currentPhase = name;
+        return phases.computeIfAbsent(name, Phase::new);
+    }
+
+    public final class Phase {
+        private final String name;
+        private final AtomicLong bytesDone = new AtomicLong();
+        /** nur tatsächlich übertragene Bytes (für die Rate), ohne übersprungene/fortgesetzte */
+        private final AtomicLong transferred = new AtomicLong();
+        private final AtomicLong bytesTotal = new AtomicLong();
+        private final AtomicInteger filesDone = new AtomicInteger();
+        private final AtomicInteger filesTotal = new AtomicInteger();
+        private final Set<Object> started = ConcurrentHashMap.newKeySet();
+        private volatile boolean presized;
+
+        private Phase(String name) {
+            this.name = name;
+        }
+
+        /** Bekannte Größe vorab eintragen; Content-Length wird dann nicht mehr mitgezählt. */
+        public Phase expect(long bytes, int files) {
+            presized = true;
+            if (bytes > 0) bytesTotal.addAndGet(bytes);
+            filesTotal.addAndGet(files);
+            notifyListener(false);
+            return this;
+        }
+
+        public void addBytes(long n) {
+            bytesDone.addAndGet(n);
+            transferred.addAndGet(n);
+            notifyListener(false);
+        }
+
+        /** Datei fertig; skippedBytes = Bytes, die nicht geladen werden mussten (schon vorhanden/Cache). */
+        public void fileDone(long skippedBytes) {
+            if (skippedBytes > 0) bytesDone.addAndGet(skippedBytes);
+            filesDone.incrementAndGet();
+            notifyListener(false);
+        }
+
+        /** Phase komplett: Rest auffüllen (z.B. wenn Dateien kleiner waren als angegeben). */
+        public void finish() {
+            bytesDone.set(Math.max(bytesDone.get(), bytesTotal.get()));
+            notifyListener(true);
+        }
+
+        /** Bindet die Phase an den aktuellen Thread, damit HTTP-Downloads hier mitgezählt werden. */
+        public Binding bind() {
+            Phase previous = BOUND.get();
+            BOUND.set(this);
+            return () -> {
+                if (previous == null) BOUND.remove();
+                else BOUND.set(previous);
+            };
+        }
+
+        private PhaseStats stats() {
+            long total = bytesTotal.get();
+            return new PhaseStats(name, Math.min(bytesDone.get(), total > 0 ? total : Long.MAX_VALUE),
+                    total > 0 ? total : -1, filesDone.get(), filesTotal.get());
+        }
+    }
+
+    /** Phase am aktuellen Thread (oder null) – zum Weiterreichen an Worker-Threads. */
+    public static Phase bound() {
+        return BOUND.get();
+    }
+
+    /** Rückgängig machen von {@link Phase#bind()}; für try-with-resources. */
+    public interface Binding extends AutoCloseable {
+        @Override void close();
+    }
+
+    // ---------- Hooks für die Download-Schicht ----------
+
+    /**
+     * Download gestartet; contentLength = Rest laut Server (-1 = unbekannt), alreadyHave = per Resume
+     * vorhandener Anfang. key = Zieldatei, damit Retries derselben Datei nicht mehrfach zählen.
+     */
+    static void httpStarted(Object key, long contentLength, long alreadyHave) {
+        Phase p = BOUND.get();
+        if (p == null || !p.started.add(key)) return;
+        if (alreadyHave > 0) p.bytesDone.addAndGet(alreadyHave);
+        if (p.presized) return;
+        p.filesTotal.incrementAndGet();
+        if (contentLength > 0) p.bytesTotal.addAndGet(contentLength + Math.max(0, alreadyHave));
+    }
+
+    static void httpBytes(long n) {
+        Phase p = BOUND.get();
+        if (p != null) p.addBytes(n);
+    }
+
+    static void httpFinished() {
+        Phase p = BOUND.get();
+        if (p != null && !p.presized) p.fileDone(0);
+    }
+
+    // ---------- Snapshot / Listener ----------
+
+    public synchronized Snapshot snapshot() {
+        List<PhaseStats> list = new ArrayList<>(phases.size());
+        long done = 0, total = 0;
+        boolean unknown = false;
+        for (Phase p : phases.values()) {
+            PhaseStats s = p.stats();
+            list.add(s);
+            if (s.bytesTotal() < 0) {
+                unknown |= s.filesTotal() > s.filesDone();
+                continue;
+            }
+            done += s.bytesDone();
+            total += s.bytesTotal();
+        }
+
+        long now = System.currentTimeMillis();
+        long allBytes = 0;
+        for (Phase p : phases.values()) allBytes += p.transferred.get();
+        if (now - sampleAt >= RATE_SAMPLE_MS) {
+            double r = (allBytes - sampleBytes) * 1000.0 / (now - sampleAt);
+            rate = rate < 0 ? r : rate + RATE_ALPHA * (r - rate);
+            sampleAt = now;
+            sampleBytes = allBytes;
+        }
+
+        Duration eta = null;
+        if (!unknown && total > 0 && rate > 1) {
+            eta = Duration.ofSeconds((long) Math.ceil((total - done) / rate));
+        }
+        return new Snapshot(currentPhase, done, total > 0 ? total : -1, Math.max(0, rate), eta, list);
+    }
+
+    private void notifyListener(boolean force) {
+        Snapshot s;
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            if (!force && now - lastNotify < NOTIFY_INTERVAL_MS) return;
+            lastNotify = now;
+            s = snapshot();
+        }
+        listener.onProgress(s);
+    }
+
+    // ---------- Formatierung / Headless ----------
+
+    /** z.B. "Libraries: 12.3 / 80.0 MB · 4.1 MB/s · noch 0:15" */
+    public static String format(Snapshot s) {
+        StringBuilder sb = new StringBuilder();
+        if (s.phase() != null) sb.append(s.phase()).append(": ");
+        sb.append(mb(s.bytesDone()));
+        if (s.bytesTotal() > 0) sb.append(" / ").append(mb(s.bytesTotal()));
+        sb.append(" MB");
+        if (s.bytesPerSecond() > 0) sb.append(" · ").append(mb((long) s.bytesPerSecond())).append(" MB/s");
+        if (s.eta() != null) {
+            long sec = s.eta().toSeconds();
+            sb.append(String.format(Locale.ROOT, " · noch %d:%02d", sec / 60, sec % 60));
+        }
+        return sb.toString();
+    }
+
+    /** Listener für den Headless-Betrieb: schreibt alle paar Sekunden eine Zeile ins Log. */
+    public static Listener logging(Consumer<String> log) {
+        long[] last = {0};
+        return s -> {
+            long now = System.currentTimeMillis();
+            synchronized (last) {
+                if (now - last[0] < 2000 && s.fraction() < 1.0) return;
+                last[0] = now;
+            }
+            log.accept("[DL] " + format(s));
+        };
+    }
+
+    private static String mb(long bytes) {
+        return String.format(Locale.ROOT, "%.1f", bytes / (1024.0 * 1024.0));
+    }
+}
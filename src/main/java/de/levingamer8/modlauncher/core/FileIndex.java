@@ -0,0 +1,112 @@
+package de.levingamer8.modlauncher.core;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Fingerprint-Index für Dateien unter einem Root-Ordner.
+ * Pro Pfad werden size, mtime und fileKey zusammen mit dem sha256 gespeichert.
+ * Solange sich die Stat-Daten nicht ändern, wird der Hash aus dem Index genommen
+ * statt die Datei neu zu lesen.
+ *
+ * Thread-safe, damit der parallele Sync im PackUpdater ihn direkt nutzen kann.
+ */
+public class FileIndex {
+
+    public record Entry(long size, long mtime, String fileKey, String sha256) {}
+
+    private static final ObjectMapper OM = new ObjectMapper();
+
+    private final Path root;
+    private final Path indexFile;
+    private final Map<String, Entry> entries;
+    private volatile boolean dirty;
+
+    private FileIndex(Path root, Path indexFile, Map<String, Entry> entries) {
+        this.root = root.toAbsolutePath().normalize();
+        this.indexFile = indexFile;
+        this.entries = entries;
+    }
+
+    /** Lädt den Index; fehlt er oder ist kaputt, wird leer gestartet (kostet dann nur einmal Hashen). */
+    public static FileIndex load(Path root, Path indexFile) {
+        Map<String, Entry> map = new ConcurrentHashMap<>();
+        if (Files.exists(indexFile)) {
+            try {
+                Map<String, Entry> read = OM.readValue(indexFile.toFile(), new TypeReference<Map<String, Entry>>() {});
+                if (read != null) map.putAll(read);
+            } catch (Exception ignored) {}
+        }
+        return new FileIndex(root, indexFile, map);
+    }
+
+    /** sha256 der Datei – aus dem Index, wenn size/mtime/fileKey noch passen, sonst neu gehasht. */
+    public String sha256(Path file) throws IOException {
+        String key = key(file);
+        BasicFileAttributes a = Files.readAttributes(file, BasicFileAttributes.class);
+
+        Entry e = entries.get(key);
+        if (e != null && matches(e, a)) return e.sha256();
+
+        String sha = FileUtil.sha256(file);
+        entries.put(key, entry(a, sha));
+        dirty = true;
+        return sha;
+    }
+
+    /** Hash ist schon bekannt (z.B. nach verifiziertem Download) -> nur Stat-Daten merken. */
+    public void put(Path file, String sha256) throws IOException {
+        BasicFileAttributes a = Files.readAttributes(file, BasicFileAttributes.class);
+        entries.put(key(file), entry(a, sha256));
+        dirty = true;
+    }
+
+    /** Alle bekannten Pfade (relativ zum Root) mit sha256 – Momentaufnahme. */
+    public Map<String, String> hashes() {
+        Map<String, String> out = new HashMap<>();
+        entries.forEach((k, e) -> out.put(k, e.sha256()));
+        return out;
+    }
+
+    public void remove(Path file) {
+        if (entries.remove(key(file)) != null) dirty = true;
+    }
+
+    /** Schreibt den Index (temp + rename), nur wenn sich etwas geändert hat. */
+    public void save() throws IOException {
+        if (!dirty) return;
+        FileUtil.ensureParent(indexFile);
+        Path tmp = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+        OM.writeValue(tmp.toFile(), entries);
+        FileUtil.atomicReplace(tmp, indexFile);
+        dirty = false;
+    }
+
+    private String key(Path file) {
+        return root.relativize(file.toAbsolutePath().normalize()).toString().replace('\\', '/');
+    }
+
+    private static boolean matches(Entry e, BasicFileAttributes a) {
+        return e.size() == a.size()
+                && e.mtime() == a.lastModifiedTime().toMillis()
+                && Objects.equals(e.fileKey(), fileKey(a));
+    }
+
+    private static Entry entry(BasicFileAttributes a, String sha256) {
+        return new Entry(a.size(), a.lastModifiedTime().toMillis(), fileKey(a), sha256);
+    }
+
+    private static String fileKey(BasicFileAttributes a) {
+        // unter Windows meist null, dann zählen nur size + mtime
+        Object k = a.fileKey();
+        return k == null ? null : k.toString();
+    }
+}
@@ -3,9 +3,12 @@ package de.levingamer8.modlauncher.core;
 import java.io.*;
 import java.nio.file.*;
 import java.security.*;
-import java.util.HexFormat;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.zip.ZipFile;
 
 public class FileUtil {
 
@@ -15,12 +18,26 @@ public class FileUtil {
     }
 
     public static String sha256(Path file) throws IOException {
+        return hash(file, "SHA-256");
+    }
+
+    public static String sha1(Path file) throws IOException {
+        return hash(file, "SHA-1");
+    }
+
+    public static String hash(Path file, String algorithm) throws IOException {
         try (InputStream in = Files.newInputStream(file)) {
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            MessageDigest md = newDigest(algorithm);
             byte[] buf = new byte[1024 * 1024];
             int r;
             while ((r = in.read(buf)) != -1) md.update(buf, 0, r);
             return HexFormat.of().formatHex(md.digest());
+        }
+    }
+
+    public static MessageDigest newDigest(String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
         } catch (NoSuchAlgorithmException e) {
             throw new IllegalStateException(e);
         }
@@ -35,30 +52,206 @@ public class FileUtil {
         }
     }
 
+    /**
+     * Legt target als Hardlink auf src an (Fallback: Kopie, z.B. anderes Laufwerk) und ersetzt dabei atomar.
+     */
+    public static void linkOrCopy(Path src, Path target) throws IOException {
+        ensureParent(target);
+
+        Path tmp = target.resolveSibling(target.getFileName() + ".link-tmp");
+        Files.deleteIfExists(tmp);
+        try {
+            Files.createLink(tmp, src);
+        } catch (UnsupportedOperationException | IOException e) {
+            Files.copy(src, tmp, StandardCopyOption.REPLACE_EXISTING);
+        }
+        atomicReplace(tmp, target);
+        // rename() auf zwei Links derselben Datei ist ein No-op -> tmp bliebe sonst liegen
+        Files.deleteIfExists(tmp);
+    }
+
+    /**
+     * Kopiert src nach target (temp + atomar ersetzen) und hasht dabei mit.
+     * target wird nur ersetzt, wenn der Hash zu expectedHash passt; sonst bleibt es unangetastet.
+     *
+     * @return der berechnete Hash (lowercase hex) – der Aufrufer vergleicht und entscheidet
+     */
+    public static String copyVerified(Path src, Path target, String algorithm, String expectedHash) throws IOException {
+        ensureParent(target);
+        Path tmp = target.resolveSibling(target.getFileName() + ".copy-tmp");
+        try {
+            MessageDigest md = newDigest(algorithm);
+            try (InputStream in = new DigestInputStream(Files.newInputStream(src), md)) {
+                Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String got = HexFormat.of().formatHex(md.digest());
+            if (got.equalsIgnoreCase(expectedHash)) atomicReplace(tmp, target);
+            return got;
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Wie {@link #copyVerified}, aber als Hardlink (Fallback: Kopie): kostet keinen Platz, target ist danach
+     * dieselbe Datei wie src. Gehasht wird trotzdem, damit ein schon veränderter src nicht weitergereicht wird.
+     */
+    public static String linkVerified(Path src, Path target, String algorithm, String expectedHash) throws IOException {
+        ensureParent(target);
+        Path tmp = target.resolveSibling(target.getFileName() + ".link-tmp");
+        try {
+            Files.deleteIfExists(tmp);
+            try {
+                Files.createLink(tmp, src);
+            } catch (UnsupportedOperationException | IOException e) {
+                Files.copy(src, tmp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String got = hash(tmp, algorithm);
+            if (got.equalsIgnoreCase(expectedHash)) atomicReplace(tmp, target);
+            return got;
+        } finally {
+            // rename() auf zwei Links derselben Datei ist ein No-op -> tmp bliebe sonst liegen
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /** Entpackt zipFile nach destDir (parallel, siehe {@link #extract}). */
     public static void unzipSafe(Path zipFile, Path destDir) throws IOException {
+        extract(zipFile, destDir, (e, out) -> true);
+    }
+
+    /** Ergebnis von {@link #unzipIncremental}: CRC je Eintrag + Statistik. */
+    public record ZipApplyResult(Map<String, Long> crcs, int written, int skipped) {}
+
+    /**
+     * Wendet ein Zip inkrementell an (ZipFile -> CRC/Größe aus dem Central Directory, ohne zu entpacken).
+     * Ein Eintrag wird nur geschrieben, wenn
+     * - die Datei fehlt, oder
+     * - er sich seit dem letzten Anwenden geändert hat (previousCrc) und die Datei nicht schon genau so aussieht.
+     * Unveränderte Einträge überschreiben also keine lokalen Änderungen des Users.
+     */
+    public static ZipApplyResult unzipIncremental(Path zipFile, Path destDir, Map<String, Long> previousCrc) throws IOException {
+        Map<String, Long> crcs = Collections.synchronizedMap(new LinkedHashMap<>());
+        int written = extract(zipFile, destDir, (e, out) -> {
+            crcs.put(e.getName(), e.getCrc());
+            return needsWrite(e, out, previousCrc.get(e.getName()));
+        });
+        return new ZipApplyResult(crcs, written, crcs.size() - written);
+    }
+
+    /** Entscheidet pro Datei-Eintrag, ob er geschrieben wird (läuft im Worker, darf also selbst I/O machen). */
+    @FunctionalInterface
+    public interface EntryFilter {
+        boolean shouldWrite(ZipEntry entry, Path out) throws IOException;
+    }
+
+    /**
+     * Entpackt über ZipFile statt ZipInputStream: das Central Directory wird einmal gelesen,
+     * die Einträge werden dann parallel (ein Worker pro Kern) inflated und geschrieben.
+     *
+     * Reihenfolge bleibt sicher:
+     * 1. alle Namen gegen Zip Slip prüfen, bevor irgendwas geschrieben wird; doppelte Ziele: letzter Eintrag gewinnt
+     * 2. Ordner in Zip-Reihenfolge anlegen (single-threaded)
+     * 3. erst dann Dateien parallel schreiben
+     *
+     * @return Anzahl geschriebener Dateien
+     */
+    public static int extract(Path zipFile, Path destDir, EntryFilter filter) throws IOException {
         Files.createDirectories(destDir);
         Path normDest = destDir.toAbsolutePath().normalize();
 
-        try (ZipInputStream zis = new ZipInputStream(Files.newInputStream(zipFile))) {
-            ZipEntry e;
-            while ((e = zis.getNextEntry()) != null) {
-                if (e.isDirectory()) continue;
+        try (ZipFile zf = new ZipFile(zipFile.toFile())) {
+            // Ziel -> Eintrag: doppelte Namen (auch "a/../b" vs. "b") würden sonst parallel in dieselbe Datei schreiben;
+            // wie beim sequentiellen Entpacken gewinnt der letzte Eintrag
+            Map<Path, ZipEntry> files = new LinkedHashMap<>();
+            Set<Path> dirs = new LinkedHashSet<>();
 
+            Enumeration<? extends ZipEntry> en = zf.entries();
+            while (en.hasMoreElements()) {
+                ZipEntry e = en.nextElement();
                 Path out = normDest.resolve(e.getName()).normalize();
                 if (!out.startsWith(normDest)) {
                     throw new SecurityException("Zip Slip detected: " + e.getName());
                 }
 
-                ensureParent(out);
-                try (OutputStream os = Files.newOutputStream(out,
-                        StandardOpenOption.CREATE,
-                        StandardOpenOption.TRUNCATE_EXISTING)) {
-                    zis.transferTo(os);
+                if (e.isDirectory()) {
+                    dirs.add(out);
+                } else {
+                    if (out.getParent() != null) dirs.add(out.getParent());
+                    files.put(out, e);
+                }
+            }
+
+            for (Path d : dirs) Files.createDirectories(d);
+
+            AtomicInteger written = new AtomicInteger();
+            int threads = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), files.size()));
+            ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+                Thread t = new Thread(r, "unzip");
+                t.setDaemon(true);
+                return t;
+            });
+            try {
+                List<Future<?>> futures = new ArrayList<>(files.size());
+                for (var entry : files.entrySet()) {
+                    Path out = entry.getKey();
+                    ZipEntry e = entry.getValue();
+                    futures.add(pool.submit(() -> {
+                        if (!filter.shouldWrite(e, out)) return null;
+                        try (InputStream in = zf.getInputStream(e);
+                             OutputStream os = Files.newOutputStream(out,
+                                     StandardOpenOption.CREATE,
+                                     StandardOpenOption.TRUNCATE_EXISTING)) {
+                            in.transferTo(os);
+                        }
+                        written.incrementAndGet();
+                        return null;
+                    }));
+                }
+                for (Future<?> f : futures) f.get();
+            } catch (ExecutionException ex) {
+                Throwable c = ex.getCause();
+                if (c instanceof IOException io) throw io;
+                if (c instanceof RuntimeException re) throw re;
+                throw new IOException(c);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Entpacken abgebrochen");
+            } finally {
+                // ZipFile erst schließen, wenn kein Worker mehr liest
+                pool.shutdownNow();
+                try {
+                    pool.awaitTermination(30, TimeUnit.SECONDS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
                 }
             }
+            return written.get();
         }
     }
 
+    private static boolean needsWrite(ZipEntry e, Path out, Long previousCrc) throws IOException {
+        if (!Files.exists(out)) return true;
+
+        long crc = e.getCrc();
+        if (crc == -1) return true; // unbekannt -> sicherheitshalber schreiben
+
+        // im Pack unverändert -> lokale Datei (ggf. vom User angepasst) in Ruhe lassen
+        if (previousCrc != null && previousCrc == crc) return false;
+
+        // geändert oder kein Index: nur schreiben, wenn der Inhalt wirklich abweicht
+        return Files.size(out) != e.getSize() || crc32(out) != crc;
+    }
+
+    public static long crc32(Path file) throws IOException {
+        CRC32 crc = new CRC32();
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] buf = new byte[64 * 1024];
+            int r;
+            while ((r = in.read(buf)) != -1) crc.update(buf, 0, r);
+        }
+        return crc.getValue();
+    }
 
     public static void deleteRecursive(Path root) throws IOException {
         if (root == null || !Files.exists(root)) return;
@@ -1,44 +1,422 @@
 package de.levingamer8.modlauncher.core;
 
 import java.io.IOException;
-import java.net.URI;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.http.*;
-import java.time.Duration;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class HttpClientEx {
 
-    private final HttpClient client = HttpClient.newBuilder()
-            .followRedirects(HttpClient.Redirect.NORMAL)
-            .connectTimeout(Duration.ofSeconds(20))
-            .build();
+    /** Ergebnis eines Downloads: Hash (hex, lowercase) über die geschriebenen Bytes + Anzahl Bytes. */
+    public record DownloadResult(String hash, long bytes) {}
+
+    private final HttpTransport transport;
+
+    public HttpClientEx() {
+        this(HttpTransport.shared());
+    }
+
+    public HttpClientEx(HttpTransport transport) {
+        this.transport = transport;
+    }
 
     public String getText(String url) throws IOException, InterruptedException {
-        HttpRequest req = HttpRequest.newBuilder(URI.create(url))
-                .timeout(Duration.ofSeconds(30))
-                .GET().build();
+        return transport.retry().execute(() -> {
+            HttpRequest req = transport.request(url).build();
+
+            HttpResponse<String> resp = transport.sendText(req);
+            if (resp.statusCode() < 200 || resp.statusCode() >= 300) {
+                throw statusError(resp, url);
+            }
+            return resp.body();
+        });
+    }
+
+    /** Antwort eines bedingten GET: status 304 -> body null, Validatoren bleiben die alten. */
+    public record ConditionalText(int status, String body, String etag, String lastModified) {
+        public boolean notModified() { return status == 304; }
+    }
+
+    /**
+     * GET mit If-None-Match / If-Modified-Since (wenn Validatoren bekannt).
+     * 304 ist kein Fehler, sondern heißt: gecachte Version ist aktuell.
+     */
+    public ConditionalText getTextConditional(String url, String etag, String lastModified) throws IOException, InterruptedException {
+        return transport.retry().execute(() -> {
+            HttpRequest.Builder rb = transport.request(url);
+            if (etag != null) rb.header("If-None-Match", etag);
+            if (lastModified != null) rb.header("If-Modified-Since", lastModified);
 
-        HttpResponse<String> resp = client.send(req, HttpResponse.BodyHandlers.ofString());
-        if (resp.statusCode() < 200 || resp.statusCode() >= 300) {
-            throw new IOException("HTTP " + resp.statusCode() + " for " + url);
+            HttpResponse<String> resp = transport.sendText(rb.build());
+            if (resp.statusCode() == 304) {
+                return new ConditionalText(304, null, etag, lastModified);
+            }
+            if (resp.statusCode() < 200 || resp.statusCode() >= 300) {
+                throw statusError(resp, url);
+            }
+            return new ConditionalText(resp.statusCode(), resp.body(),
+                    resp.headers().firstValue("ETag").orElse(null),
+                    resp.headers().firstValue("Last-Modified").orElse(null));
+        });
+    }
+
+    /** Wie {@link ConditionalText}, nur liegt der Body (entpackt) in einer Datei statt im Speicher. */
+    public record ConditionalFile(int status, String etag, String lastModified) {
+        public boolean notModified() { return status == 304; }
+    }
+
+    /**
+     * Bedingter GET direkt in eine Datei (für große JSONs wie das Pack-Manifest).
+     * Bei 304 wird target nicht angefasst.
+     */
+    public ConditionalFile getToFileConditional(String url, String etag, String lastModified, Path target)
+            throws IOException, InterruptedException {
+        return transport.retry().execute(() -> {
+            HttpRequest.Builder rb = transport.request(url);
+            if (etag != null) rb.header("If-None-Match", etag);
+            if (lastModified != null) rb.header("If-Modified-Since", lastModified);
+
+            HttpResponse<InputStream> resp = transport.sendDecoded(rb.build());
+            try (InputStream in = resp.body()) {
+                if (resp.statusCode() == 304) {
+                    return new ConditionalFile(304, etag, lastModified);
+                }
+                if (resp.statusCode() < 200 || resp.statusCode() >= 300) {
+                    throw statusError(resp, url);
+                }
+                FileUtil.ensureParent(target);
+                Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return new ConditionalFile(resp.statusCode(),
+                    resp.headers().firstValue("ETag").orElse(null),
+                    resp.headers().firstValue("Last-Modified").orElse(null));
+        });
+    }
+
+    /** Download nach targetTmp, sha256 wird beim Schreiben mitgerechnet. */
+    public DownloadResult downloadToFile(String url, Path targetTmp) throws IOException, InterruptedException {
+        return downloadToFile(url, targetTmp, "SHA-256");
+    }
+
+    public DownloadResult downloadToFile(String url, Path targetTmp, String algorithm) throws IOException, InterruptedException {
+        return downloadToFile(List.of(url), targetTmp, algorithm, null);
+    }
+
+    /**
+     * Download nach targetTmp. Der Hash (algorithm, z.B. "SHA-256" oder "SHA-1") wird
+     * während des Streamens berechnet -> kein zweiter Lesedurchgang für die Prüfung.
+     *
+     * Mirrors: urls enthält dieselbe Datei auf verschiedenen Servern. Probiert wird in der Reihenfolge
+     * von {@link MirrorStats} (schnellste zuerst). Liefert der erste Mirror nicht rechtzeitig Header,
+     * läuft ein zweiter parallel mit (Hedging), der schnellere gewinnt. Fällt ein Mirror ganz aus
+     * (auch nach Retries) oder passt der Hash nicht (expectedHash != null), kommt der nächste dran.
+     *
+     * Resume: existiert targetTmp schon (abgebrochener Download) und gibt es einen gemerkten
+     * Validator (ETag/Last-Modified in targetTmp.meta), wird per Range/If-Range nur der Rest geholt –
+     * immer vom Mirror, der den Anfang geliefert hat (steht mit in der .meta). Ist der nicht mehr dran, geht es von vorn los.
+     * Ignoriert der Server die Range (200 statt 206), wird normal komplett geladen.
+     * Bei Abbruch bleiben .part + .meta liegen, damit der nächste Versuch weitermachen kann –
+     * vorübergehende Fehler werden deshalb direkt hier wiederholt (mit Backoff) und setzen dabei fort.
+     */
+    public DownloadResult downloadToFile(List<String> urls, Path targetTmp, String algorithm, String expectedHash)
+            throws IOException, InterruptedException {
+        try {
+            return downloadMirrors(urls, targetTmp, algorithm, expectedHash);
+        } catch (IOException | InterruptedException e) {
+            // Abbruch durch den User: kein Resume gewünscht -> Teildatei weg. Andere Interrupts (Pool stoppt nach
+            // Fehler eines anderen Downloads, Shutdown) und Crashs lassen sie für den nächsten Versuch liegen.
+            if (CancellableTask.cancelledByUser()) discardPart(targetTmp);
+            throw e;
+        }
+    }
+
+    private DownloadResult downloadMirrors(List<String> urls, Path targetTmp, String algorithm, String expectedHash)
+            throws IOException, InterruptedException {
+        if (urls.isEmpty()) throw new IllegalArgumentException("Keine URL");
+        List<String> order = transport.mirrors().order(urls);
+
+        IOException last = null;
+        for (int i = 0; i < order.size(); i++) {
+            List<String> candidates = order.subList(i, order.size());
+            Transferred t;
+            try {
+                t = transport.retry().execute(() -> fetchToFile(candidates, targetTmp, algorithm));
+            } catch (FileSystemException e) {
+                throw e; // lokales Problem, ein anderer Mirror hilft nicht
+            } catch (IOException e) {
+                if (CancellableTask.isCancellation(e)) throw e;
+                last = e;
+                continue;
+            }
+
+            DownloadResult res = t.result();
+            if (expectedHash == null || expectedHash.isBlank() || res.hash().equalsIgnoreCase(expectedHash)) {
+                return res;
+            }
+            discardPart(targetTmp);
+            last = new IOException("Hash mismatch (" + algorithm + ") für " + t.url()
+                    + " expected=" + expectedHash + " got=" + res.hash());
         }
-        return resp.body();
+        throw last;
     }
 
-    public void downloadToFile(String url, java.nio.file.Path targetTmp) throws IOException, InterruptedException {
-        HttpRequest req = HttpRequest.newBuilder(URI.create(url))
-                .timeout(Duration.ofMinutes(10))
-                .GET().build();
+    /** Ergebnis eines Transfers + die URL, die die Bytes tatsächlich geliefert hat (bei Resume: die des Anfangs). */
+    private record Transferred(String url, DownloadResult result) {}
 
-        HttpResponse<java.io.InputStream> resp = client.send(req, HttpResponse.BodyHandlers.ofInputStream());
-        if (resp.statusCode() < 200 || resp.statusCode() >= 300) {
-            throw new IOException("HTTP " + resp.statusCode() + " for " + url);
+    /** Ein Versuch; wartet vorher, bis wichtigere Downloads durch sind (siehe {@link BandwidthLimiter}). */
+    private Transferred fetchToFile(List<String> candidates, Path targetTmp, String algorithm) throws IOException, InterruptedException {
+        DownloadPriority prio = DownloadPriority.current();
+        try (var ticket = transport.limiter().admit(prio)) {
+            return transfer(candidates, targetTmp, algorithm, prio);
         }
+    }
 
-        try (var in = resp.body();
-             var out = java.nio.file.Files.newOutputStream(targetTmp,
-                     java.nio.file.StandardOpenOption.CREATE,
-                     java.nio.file.StandardOpenOption.TRUNCATE_EXISTING)) {
-            in.transferTo(out);
+    private Transferred transfer(List<String> candidates, Path targetTmp, String algorithm, DownloadPriority prio)
+            throws IOException, InterruptedException {
+        long have = Files.exists(targetTmp) ? Files.size(targetTmp) : 0;
+        ResumeInfo ri = have > 0 ? readResumeInfo(targetTmp) : null;
+        if (ri != null && !candidates.contains(ri.url())) {
+            // Anfang kam von einem Mirror, der jetzt nicht (mehr) dran ist -> dessen Bytes nicht mit anderen mischen
+            discardPart(targetTmp);
+            have = 0;
+            ri = null;
         }
+        String validator = ri != null ? ri.validator() : null;
+
+        // Resume nur vom selben Server; Hedging nur beim frischen Start
+        Opened o = (ri == null && candidates.size() > 1)
+                ? openHedged(candidates.get(0), candidates.get(1))
+                : open(ri != null ? ri.url() : candidates.getFirst(), have, validator);
+        String url = o.url();
+        HttpResponse<InputStream> resp = o.response();
+
+        MessageDigest md = FileUtil.newDigest(algorithm);
+        long bytes = 0;
+        long received = 0;
+        long start = System.nanoTime();
+
+        if (resp.statusCode() == 416 && validator != null) {
+            // Range passt nicht (Datei serverseitig kleiner/anders) -> von vorn; Body vorher zu, sonst hält er den Host-Slot
+            resp.body().close();
+            discardPart(targetTmp);
+            return transfer(candidates, targetTmp, algorithm, prio);
+        }
+
+        // Body immer schließen – hält sonst den Host-Slot im Transport fest
+        try (InputStream in = resp.body()) {
+            if (resp.statusCode() < 200 || resp.statusCode() >= 300) {
+                throw statusError(resp, url);
+            }
+
+            boolean resume = resp.statusCode() == 206 && validator != null && rangeStartsAt(resp, have);
+            if (resp.statusCode() == 206 && !resume) {
+                discardPart(targetTmp);
+                throw new IOException("Unerwartete Teilantwort (206) für " + url);
+            }
+
+            DownloadProgress.httpStarted(targetTmp, resp.headers().firstValueAsLong("Content-Length").orElse(-1),
+                    resume ? have : 0);
+
+            if (resume) {
+                // vorhandenen Anfang in den Hash einrechnen (einmal lesen statt neu laden)
+                try (InputStream old = Files.newInputStream(targetTmp)) {
+                    byte[] buf = new byte[64 * 1024];
+                    int r;
+                    while ((r = old.read(buf)) != -1) {
+                        md.update(buf, 0, r);
+                        bytes += r;
+                    }
+                }
+            } else {
+                writeResumeInfo(targetTmp, url, resp);
+            }
+
+            try (OutputStream out = Files.newOutputStream(targetTmp,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE,
+                    resume ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING)) {
+                byte[] buf = new byte[64 * 1024];
+                int r;
+                while ((r = in.read(buf)) != -1) {
+                    out.write(buf, 0, r);
+                    md.update(buf, 0, r);
+                    bytes += r;
+                    received += r;
+                    DownloadProgress.httpBytes(r);
+                    transport.limiter().consume(r, prio);
+                }
+            }
+        }
+
+        transport.mirrors().recordTransfer(url, received, (System.nanoTime() - start) / 1_000_000);
+        DownloadProgress.httpFinished();
+        Files.deleteIfExists(metaFile(targetTmp));
+        return new Transferred(url, new DownloadResult(HexFormat.of().formatHex(md.digest()), bytes));
+    }
+
+    /** Offene Antwort + die URL, von der sie tatsächlich kommt. */
+    private record Opened(String url, HttpResponse<InputStream> response) {}
+
+    private Opened open(String url, long have, String validator) throws IOException, InterruptedException {
+        HttpRequest.Builder rb = transport.request(url)
+                .timeout(HttpTransport.DOWNLOAD_TIMEOUT);
+        if (validator != null) {
+            rb.header("Range", "bytes=" + have + "-");
+            rb.header("If-Range", validator);
+        }
+
+        long start = System.nanoTime();
+        HttpResponse<InputStream> resp = transport.send(rb.build(), HttpResponse.BodyHandlers.ofInputStream());
+        transport.mirrors().recordLatency(url, (System.nanoTime() - start) / 1_000_000);
+        return new Opened(url, resp);
+    }
+
+    /**
+     * Startet primary; kommen bis zur Deadline keine Header, läuft secondary parallel.
+     * Die erste 2xx-Antwort gewinnt, der Body der anderen wird geschlossen, sobald sie da ist.
+     * Scheitern beide, wird bevorzugt der Fehler von primary geworfen.
+     */
+    private Opened openHedged(String primary, String secondary) throws IOException, InterruptedException {
+        CompletableFuture<Opened> first = openAsync(primary);
+        List<CompletableFuture<Opened>> started = new ArrayList<>(List.of(first));
+        try {
+            first.get(transport.mirrors().hedgeDeadline(primary).toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            started.add(openAsync(secondary));
+        } catch (ExecutionException ignored) {
+            // wird unten ausgewertet
+        }
+
+        CompletableFuture<Opened> winner = new CompletableFuture<>();
+        AtomicInteger remaining = new AtomicInteger(started.size());
+        AtomicReference<Throwable> primaryError = new AtomicReference<>();
+        for (CompletableFuture<Opened> f : started) {
+            f.whenComplete((o, err) -> {
+                if (o != null && o.response().statusCode() / 100 == 2 && winner.complete(o)) return;
+                if (o != null) closeQuietly(o);
+
+                Throwable cause = err != null
+                        ? (err instanceof CompletionException ce && ce.getCause() != null ? ce.getCause() : err)
+                        : statusError(o.response(), o.url());
+                if (f == first) primaryError.set(cause);
+                if (remaining.decrementAndGet() == 0) {
+                    winner.completeExceptionally(primaryError.get() != null ? primaryError.get() : cause);
+                }
+            });
+        }
+
+        try {
+            return winner.get();
+        } catch (InterruptedException e) {
+            winner.thenAccept(HttpClientEx::closeQuietly);
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable c = e.getCause();
+            if (c instanceof IOException io) throw io;
+            if (c instanceof InterruptedException ie) throw ie;
+            throw new IOException("Download fehlgeschlagen: " + primary, c);
+        }
+    }
+
+    private CompletableFuture<Opened> openAsync(String url) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return open(url, 0, null);
+            } catch (IOException | InterruptedException e) {
+                throw new CompletionException(e);
+            }
+        }, transport.hedgePool());
+    }
+
+    private static void closeQuietly(Opened o) {
+        try {
+            o.response().body().close();
+        } catch (IOException ignored) {}
+    }
+
+    /** Löscht eine .part-Datei samt Resume-Infos (z.B. nach Hash-Mismatch). */
+    public static void discardPart(Path part) throws IOException {
+        Files.deleteIfExists(part);
+        Files.deleteIfExists(metaFile(part));
+    }
+
+    /**
+     * Lädt nach target (über target.part), prüft gegen expectedHash (wenn != null)
+     * und ersetzt dann atomar. Bei Mismatch bleibt target unangetastet.
+     */
+    public DownloadResult downloadVerified(String url, Path target, String algorithm, String expectedHash)
+            throws IOException, InterruptedException {
+        return downloadVerified(List.of(url), target, algorithm, expectedHash);
+    }
+
+    public DownloadResult downloadVerified(List<String> urls, Path target, String algorithm, String expectedHash)
+            throws IOException, InterruptedException {
+        FileUtil.ensureParent(target);
+        Path tmp = target.resolveSibling(target.getFileName() + ".part");
+
+        DownloadResult res = downloadToFile(urls, tmp, algorithm, expectedHash);
+        FileUtil.atomicReplace(tmp, target);
+        return res;
+    }
+
+    private static HttpStatusException statusError(HttpResponse<?> resp, String url) {
+        return new HttpStatusException(resp.statusCode(), url, RetryPolicy.parseRetryAfter(resp.headers()));
+    }
+
+    // ---------- resume helpers ----------
+
+    private static Path metaFile(Path part) {
+        return part.resolveSibling(part.getFileName() + ".meta");
+    }
+
+    /** Validator für If-Range + die URL, von der die .part stammt (ETag/Last-Modified gelten nur dort). */
+    private record ResumeInfo(String validator, String url) {}
+
+    /** .meta: Zeile 1 Validator, Zeile 2 Quell-URL. Alte .meta ohne URL -> null (Herkunft unklar, nicht fortsetzen). */
+    private static ResumeInfo readResumeInfo(Path part) {
+        try {
+            Path meta = metaFile(part);
+            if (!Files.exists(meta)) return null;
+            List<String> lines = Files.readAllLines(meta);
+            if (lines.size() < 2) return null;
+            String v = lines.get(0).trim();
+            String url = lines.get(1).trim();
+            return v.isEmpty() || url.isEmpty() ? null : new ResumeInfo(v, url);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /** Merkt sich ETag (nur strong, If-Range erlaubt keine weak ETags) oder Last-Modified, dazu die Quelle. */
+    private static void writeResumeInfo(Path part, String url, HttpResponse<?> resp) throws IOException {
+        String etag = resp.headers().firstValue("ETag").orElse(null);
+        String v = (etag != null && !etag.startsWith("W/")) ? etag
+                : resp.headers().firstValue("Last-Modified").orElse(null);
+
+        Path meta = metaFile(part);
+        if (v == null) {
+            Files.deleteIfExists(meta);
+        } else {
+            FileUtil.ensureParent(meta);
+            Files.writeString(meta, v + "\n" + url + "\n");
+        }
+    }
+
+    private static boolean rangeStartsAt(HttpResponse<?> resp, long offset) {
+        // Content-Range: bytes 1234-5678/9999
+        String cr = resp.headers().firstValue("Content-Range").orElse("");
+        return cr.startsWith("bytes " + offset + "-");
     }
 }
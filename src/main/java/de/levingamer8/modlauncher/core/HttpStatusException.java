@@ -0,0 +1,34 @@
+package de.levingamer8.modlauncher.core;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/** Nicht-2xx-Antwort. retryAfter kommt aus dem Retry-After-Header (null, wenn keiner da war). */
+public class HttpStatusException extends IOException {
+
+    private final int statusCode;
+    private final Duration retryAfter;
+
+    public HttpStatusException(int statusCode, String url, Duration retryAfter) {
+        super("HTTP " + statusCode + " for " + url);
+        this.statusCode = statusCode;
+        this.retryAfter = retryAfter;
+    }
+
+    public int statusCode() {
+        return statusCode;
+    }
+
+    public Duration retryAfter() {
+        return retryAfter;
+    }
+
+    /** 408/429 und 5xx (außer 501) sind typischerweise vorübergehend. */
+    public boolean isTransient() {
+        return isTransient(statusCode);
+    }
+
+    public static boolean isTransient(int status) {
+        return status == 408 || status == 429 || (status >= 500 && status != 501);
+    }
+}
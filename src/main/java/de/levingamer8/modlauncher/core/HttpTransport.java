@@ -0,0 +1,223 @@
+package de.levingamer8.modlauncher.core;
+
+import javax.net.ssl.SSLSession;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Gemeinsamer HTTP-Transport für alles, was der Launcher lädt (Manifest, Mojang, Libraries, Forge, Fabric,
+ * Modrinth, Java, Launcher-Update, Login).
+ *
+ * Ein einziger HttpClient -> Verbindungen, TLS-Sessions und HTTP/2-Streams werden über alle Phasen
+ * eines Starts wiederverwendet. Pro Host gibt es ein Limit gleichzeitiger Requests, damit 32 Download-Threads
+ * nicht einen einzelnen Server zuschütten.
+ *
+ * Fehler/5xx werden pro Host im CircuitBreaker gezählt; ein toter Host schlägt dann sofort fehl.
+ * Wiederholungen macht der Aufrufer über {@link #retry()}, weil nur er weiß, ob ein Request
+ * idempotent ist bzw. wie er fortgesetzt wird (z.B. Resume per Range).
+ */
+public final class HttpTransport {
+
+    public static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(20);
+    /** Für kleine Antworten (JSON, Metadaten). */
+    public static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    /** Für Dateien; gilt bis die Header da sind, nicht für den ganzen Body. */
+    public static final Duration DOWNLOAD_TIMEOUT = Duration.ofMinutes(10);
+
+    public static final int DEFAULT_MAX_PER_HOST = 8;
+
+    private static final HttpTransport SHARED = new HttpTransport(DEFAULT_MAX_PER_HOST);
+
+    public static HttpTransport shared() {
+        return SHARED;
+    }
+
+    private final HttpClient client;
+    private final int maxPerHost;
+    private final ConcurrentHashMap<String, Semaphore> hosts = new ConcurrentHashMap<>();
+    private final CircuitBreaker breaker = new CircuitBreaker();
+    private final RetryPolicy retry = RetryPolicy.DEFAULT;
+    private final MirrorStats mirrors = new MirrorStats(breaker);
+    private final BandwidthLimiter limiter = new BandwidthLimiter();
+
+    /** Für gehedgte Requests (zweiter Mirror läuft parallel zum ersten). */
+    private final ExecutorService hedgePool = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "http-hedge");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public HttpTransport(int maxPerHost) {
+        this.maxPerHost = Math.max(1, maxPerHost);
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2) // fällt bei Servern ohne h2 automatisch auf 1.1 zurück
+                .followRedirects(HttpClient.Redirect.ALWAYS) // wie vorher in den Installern: manche Mirrors leiten https -> http um
+                .connectTimeout(CONNECT_TIMEOUT)
+                .build();
+    }
+
+    public RetryPolicy retry() {
+        return retry;
+    }
+
+    public CircuitBreaker breaker() {
+        return breaker;
+    }
+
+    public MirrorStats mirrors() {
+        return mirrors;
+    }
+
+    /** Bandbreitenlimit + Vorrang für Datei-Downloads (siehe HttpClientEx). */
+    public BandwidthLimiter limiter() {
+        return limiter;
+    }
+
+    ExecutorService hedgePool() {
+        return hedgePool;
+    }
+
+    /** GET-Request mit Standard-Timeout; Aufrufer können Header/Timeout noch anpassen. */
+    public HttpRequest.Builder request(String url) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(REQUEST_TIMEOUT)
+                .GET();
+    }
+
+    /**
+     * Wie HttpClient.send, aber mit Host-Limit. Bei InputStream-Bodies bleibt der Slot belegt,
+     * bis der Stream geschlossen wird (sonst würde das Limit nur für die Header gelten).
+     */
+    @SuppressWarnings("unchecked")
+    public <T> HttpResponse<T> send(HttpRequest req, HttpResponse.BodyHandler<T> handler) throws IOException, InterruptedException {
+        String host = host(req.uri());
+        boolean probe = breaker.check(host);
+
+        Semaphore slot = hosts.computeIfAbsent(host, h -> new Semaphore(maxPerHost, true));
+        try {
+            slot.acquire();
+        } catch (InterruptedException e) {
+            if (probe) breaker.abort(host);
+            throw e;
+        }
+
+        HttpResponse<T> resp;
+        try {
+            resp = client.send(req, handler);
+        } catch (IOException e) {
+            slot.release();
+            // Abbruch durch den User sagt nichts über den Host
+            if (CancellableTask.isCancellation(e)) {
+                if (probe) breaker.abort(host);
+            } else {
+                breaker.failure(host);
+            }
+            throw e;
+        } catch (InterruptedException | RuntimeException | Error e) {
+            slot.release();
+            if (probe) breaker.abort(host);
+            throw e;
+        }
+
+        // 429 heißt "langsamer", nicht "kaputt" -> zählt nicht gegen den Host
+        int status = resp.statusCode();
+        if (HttpStatusException.isTransient(status) && status != 429) {
+            breaker.failure(host);
+        } else {
+            breaker.success(host);
+        }
+
+        if (resp.body() instanceof InputStream in) {
+            return (HttpResponse<T>) new StreamResponse((HttpResponse<InputStream>) resp, new ReleasingStream(in, slot));
+        }
+        slot.release();
+        return resp;
+    }
+
+    /**
+     * Für Text/JSON: bietet gzip/deflate an und liefert den entpackten Body als String.
+     * (Der HttpClient selbst kann kein Content-Encoding.) Setzt der Aufrufer Accept-Encoding schon, bleibt es dabei.
+     */
+    public HttpResponse<String> sendText(HttpRequest req) throws IOException, InterruptedException {
+        HttpResponse<InputStream> resp = sendDecoded(req);
+        try (InputStream in = resp.body()) {
+            return new TextResponse(resp, new String(in.readAllBytes(), ContentEncoding.charset(resp.headers())));
+        }
+    }
+
+    /** Wie {@link #sendText}, aber der entpackte Body bleibt ein Stream (große JSONs direkt auf Platte). */
+    public HttpResponse<InputStream> sendDecoded(HttpRequest req) throws IOException, InterruptedException {
+        if (req.headers().firstValue("Accept-Encoding").isEmpty()) {
+            req = HttpRequest.newBuilder(req, (name, value) -> true)
+                    .header("Accept-Encoding", ContentEncoding.ACCEPT)
+                    .build();
+        }
+        HttpResponse<InputStream> resp = send(req, HttpResponse.BodyHandlers.ofInputStream());
+        try {
+            return new StreamResponse(resp, ContentEncoding.decode(resp.body(), resp.headers()));
+        } catch (IOException e) {
+            resp.body().close();
+            throw e;
+        }
+    }
+
+    static String host(URI uri) {
+        return uri.getHost() == null ? "" : uri.getHost().toLowerCase(Locale.ROOT);
+    }
+
+    /** Gibt den Host-Slot genau einmal frei, wenn der Body geschlossen wird. */
+    private static final class ReleasingStream extends FilterInputStream {
+        private final Semaphore slot;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        ReleasingStream(InputStream in, Semaphore slot) {
+            super(in);
+            this.slot = slot;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                if (released.compareAndSet(false, true)) slot.release();
+            }
+        }
+    }
+
+    /** Entpackter Text statt Stream, sonst 1:1 durchgereicht. */
+    private record TextResponse(HttpResponse<InputStream> delegate, String body) implements HttpResponse<String> {
+        @Override public int statusCode() { return delegate.statusCode(); }
+        @Override public HttpRequest request() { return delegate.request(); }
+        @Override public Optional<HttpResponse<String>> previousResponse() { return Optional.empty(); }
+        @Override public HttpHeaders headers() { return delegate.headers(); }
+        @Override public Optional<SSLSession> sslSession() { return delegate.sslSession(); }
+        @Override public URI uri() { return delegate.uri(); }
+        @Override public HttpClient.Version version() { return delegate.version(); }
+    }
+
+    /** Antwort mit ausgetauschtem Body, sonst 1:1 durchgereicht. */
+    private record StreamResponse(HttpResponse<InputStream> delegate, InputStream body) implements HttpResponse<InputStream> {
+        @Override public int statusCode() { return delegate.statusCode(); }
+        @Override public HttpRequest request() { return delegate.request(); }
+        @Override public Optional<HttpResponse<InputStream>> previousResponse() { return delegate.previousResponse(); }
+        @Override public HttpHeaders headers() { return delegate.headers(); }
+        @Override public Optional<SSLSession> sslSession() { return delegate.sslSession(); }
+        @Override public URI uri() { return delegate.uri(); }
+        @Override public HttpClient.Version version() { return delegate.version(); }
+    }
+}
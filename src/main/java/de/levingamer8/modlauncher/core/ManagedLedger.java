@@ -0,0 +1,112 @@
+package de.levingamer8.modlauncher.core;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Buchführung, welche Pfade unter game/ der Launcher für die installierte Pack-Version angelegt hat
+ * (.state/managed.json): Pack-Dateien mit sha256, overrides-Einträge mit CRC32.
+ *
+ * Aufräumen ist dann nur noch alter Ledger minus neuer Ledger – kein Ordner-Scan, und alles,
+ * was nie im Ledger stand (Screenshots, eigene Mods, Welten, ...), wird nie angefasst.
+ * Auch ein verwalteter Pfad wird nur gelöscht, wenn die Datei noch so aussieht, wie wir sie hinterlassen haben.
+ */
+public class ManagedLedger {
+
+    /** files: Pfad relativ zu game/ -> "sha256:<hex>" bzw. "crc32:<wert>" */
+    public record Data(int packVersion, Map<String, String> files) {}
+
+    private static final ObjectMapper OM = new ObjectMapper();
+    private static final String SHA256 = "sha256:";
+    private static final String CRC32 = "crc32:";
+
+    private final Path file;
+    private final Data data;
+
+    private ManagedLedger(Path file, Data data) {
+        this.file = file;
+        this.data = data;
+    }
+
+    /** data ist null, wenn es noch keinen (lesbaren) Ledger gibt. */
+    public static ManagedLedger load(Path instanceDir) {
+        Path f = instanceDir.resolve(".state/managed.json");
+        Data d = null;
+        if (Files.exists(f)) {
+            try {
+                d = OM.readValue(f.toFile(), Data.class);
+            } catch (Exception ignored) {}
+        }
+        return new ManagedLedger(f, d);
+    }
+
+    public boolean exists() {
+        return data != null && data.files() != null;
+    }
+
+    public Map<String, String> files() {
+        return exists() ? data.files() : Map.of();
+    }
+
+    /** Ledger einer Pack-Version: Pack-Dateien (sha256) + overrides-Einträge (CRC); bei Überschneidung zählt die Pack-Datei. */
+    public static Map<String, String> of(Map<String, String> packSha256, Map<String, Long> overrideCrcs) {
+        Map<String, String> out = new LinkedHashMap<>();
+        overrideCrcs.forEach((rel, crc) -> {
+            if (!rel.endsWith("/")) out.put(rel, CRC32 + crc);
+        });
+        packSha256.forEach((rel, sha) -> out.put(rel, SHA256 + sha.toLowerCase(Locale.ROOT)));
+        return out;
+    }
+
+    /**
+     * Löscht, was im alten Ledger steht und im neuen nicht mehr.
+     * Vom Nutzer veränderte Dateien bleiben liegen (nur geloggt).
+     *
+     * @return Anzahl gelöschter Dateien
+     */
+    public static int removeStale(Map<String, String> previous, Map<String, String> next, Path installDir,
+                                  FileIndex index, Consumer<String> log) throws IOException {
+        Path game = installDir.toAbsolutePath().normalize();
+        int removed = 0;
+        for (var e : previous.entrySet()) {
+            if (next.containsKey(e.getKey())) continue;
+
+            Path p = game.resolve(e.getKey()).normalize();
+            if (!p.startsWith(game) || !Files.isRegularFile(p)) continue;
+
+            if (!unchanged(p, e.getValue(), index)) {
+                log.accept("Behalten (lokal geändert): " + e.getKey());
+                continue;
+            }
+            Files.deleteIfExists(p);
+            index.remove(p);
+            log.accept("Entfernt (nicht mehr im Pack): " + e.getKey());
+            removed++;
+        }
+        return removed;
+    }
+
+    public void save(int packVersion, Map<String, String> files) throws IOException {
+        FileUtil.ensureParent(file);
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        OM.writeValue(tmp.toFile(), new Data(packVersion, files));
+        FileUtil.atomicReplace(tmp, file);
+    }
+
+    private static boolean unchanged(Path p, String fingerprint, FileIndex index) throws IOException {
+        if (fingerprint.startsWith(SHA256)) {
+            return index.sha256(p).equalsIgnoreCase(fingerprint.substring(SHA256.length()));
+        }
+        if (fingerprint.startsWith(CRC32)) {
+            return String.valueOf(FileUtil.crc32(p)).equals(fingerprint.substring(CRC32.length()));
+        }
+        return false; // unbekanntes Format -> lieber stehen lassen
+    }
+}
@@ -0,0 +1,163 @@
+package de.levingamer8.modlauncher.core;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import de.levingamer8.modlauncher.core.ManifestModels.Manifest;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * HTTP-Cache für manifest.json.
+ *
+ * Auf Platte (cache/manifests/<hash(url)>-<hash(inhalt)>.json + <hash(url)>.meta.json) liegen Body und
+ * Validatoren (ETag/Last-Modified), damit bedingt geladen werden kann (304 -> kein Body).
+ * Ein Body wird nie überschrieben: neuer Inhalt bekommt eine neue Datei, die meta zeigt auf die aktuelle.
+ * So kann ein {@link Result} seinen Body in Ruhe streamen, auch wenn parallel (Update + Play) neu geladen wird. Zusätzlich hält ein kurzer In-Memory-TTL
+ * das geparste Manifest, damit Update + Play direkt hintereinander nur einmal laden/parsen.
+ *
+ * Komprimiert wird per Accept-Encoding auf manifest.json selbst ({@link HttpTransport#sendDecoded}):
+ * ein Request, ein Validator-Paar, keine zweite Datei, die veralten kann. Der Webserver muss dafür gzip an haben.
+ *
+ * Der Body geht direkt auf Platte und wird von dort gestreamt ({@link ManifestReader}); im Speicher
+ * liegt nur der Kopf ohne files[].
+ */
+public class ManifestCache {
+
+    /**
+     * manifest = Kopf ohne files[] (files ist null), die Einträge liest man mit {@link #forEachFile}.
+     * notModified = Server hat 304 geliefert (oder Memory-Hit innerhalb TTL).
+     * body = unveränderlicher Stand, aus dem manifest gelesen wurde.
+     */
+    public record Result(Manifest manifest, boolean notModified, Path body) {
+        public void forEachFile(ObjectMapper om, ManifestReader.FileVisitor visitor) throws IOException {
+            ManifestReader.forEachFile(om, body, visitor);
+        }
+    }
+
+    private record Cached(Manifest manifest, Path body, long fetchedAtMillis) {}
+
+    private static final Duration MEMORY_TTL = Duration.ofSeconds(60);
+
+    private final Path dir;
+    private final HttpClientEx http;
+    private final ObjectMapper om;
+    private final Map<String, Cached> memory = new ConcurrentHashMap<>();
+
+    public ManifestCache(Path dir, HttpClientEx http, ObjectMapper om) {
+        this.dir = dir;
+        this.http = http;
+        this.om = om;
+    }
+
+    public Result fetch(String url, Consumer<String> log) throws IOException, InterruptedException {
+        Cached c = memory.get(url);
+        if (c != null && System.currentTimeMillis() - c.fetchedAtMillis() < MEMORY_TTL.toMillis()) {
+            return new Result(c.manifest(), true, c.body());
+        }
+
+        Path meta = dir.resolve(key(url) + ".meta.json");
+        // ältere Caches: ein Body pro URL ohne Inhalts-Hash
+        Path body = dir.resolve(key(url) + ".json");
+
+        String etag = null;
+        String lastModified = null;
+        if (Files.exists(meta)) {
+            try {
+                var node = om.readTree(Files.readString(meta, StandardCharsets.UTF_8));
+                if (node.hasNonNull("etag")) etag = node.get("etag").asText();
+                if (node.hasNonNull("lastModified")) lastModified = node.get("lastModified").asText();
+                if (node.hasNonNull("body")) body = dir.resolve(node.get("body").asText());
+                // ältere Caches haben evtl. von manifest.json.gz geladen -> deren Validatoren gelten hier nicht
+                if (node.hasNonNull("source") && !node.get("source").asText().equals(url)) {
+                    etag = null;
+                    lastModified = null;
+                }
+            } catch (Exception ignored) {}
+            if (!Files.exists(body)) { // Body weg -> Validatoren nutzlos, 304 hätte nichts zum Lesen
+                etag = null;
+                lastModified = null;
+            }
+        }
+
+        Files.createDirectories(dir);
+        // eigener Name pro Abruf: Update und Play können gleichzeitig laden
+        Path tmp = Files.createTempFile(dir, key(url), ".part");
+        try {
+            HttpClientEx.ConditionalFile resp;
+            try {
+                resp = http.getToFileConditional(url, etag, lastModified, tmp);
+            } catch (IOException e) {
+                // offline/Server weg: mit dem letzten bekannten Stand weitermachen
+                if (!Files.exists(body)) throw e;
+                log.accept("Manifest nicht erreichbar (" + e.getMessage() + ") -> nutze Cache");
+                return new Result(remember(url, ManifestReader.readHeader(om, body), body), false, body);
+            }
+
+            if (resp.notModified() && Files.exists(body)) {
+                return new Result(remember(url, ManifestReader.readHeader(om, body), body), true, body);
+            }
+
+            // erst nach erfolgreichem Parsen cachen (einmal komplett durchstreamen, damit files[] auch stimmt)
+            Manifest m = ManifestReader.readHeader(om, tmp);
+            ManifestReader.forEachFile(om, tmp, f -> {});
+            Path snapshot = dir.resolve(key(url) + "-" + FileUtil.sha256(tmp).substring(0, 16) + ".json");
+            if (!Files.exists(snapshot)) FileUtil.atomicReplace(tmp, snapshot);
+
+            writeMeta(meta, url, snapshot, resp);
+            pruneSnapshots(url, snapshot, body);
+            return new Result(remember(url, m, snapshot), false, snapshot);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Alte Bodies dieser URL löschen. Der bisherige bleibt noch einen Abruf lang liegen, weil ein
+     * Result von vorhin evtl. gerade daraus liest. Geöffnete Dateien (Windows) werden beim nächsten Mal erwischt.
+     */
+    private void pruneSnapshots(String url, Path current, Path previous) {
+        String k = key(url);
+        try (var s = Files.list(dir)) {
+            for (Path p : s.toList()) {
+                String name = p.getFileName().toString();
+                if (!name.equals(k + ".json") && !(name.startsWith(k + "-") && name.endsWith(".json"))) continue;
+                if (p.equals(current) || p.equals(previous)) continue;
+                try {
+                    Files.deleteIfExists(p);
+                } catch (IOException ignored) {}
+            }
+        } catch (IOException ignored) {}
+    }
+
+    private void writeMeta(Path meta, String url, Path body, HttpClientEx.ConditionalFile resp) throws IOException {
+        ObjectNode mn = om.createObjectNode();
+        mn.put("url", url);
+        mn.put("body", body.getFileName().toString());
+        mn.put("etag", resp.etag());
+        mn.put("lastModified", resp.lastModified());
+        write(meta, om.writeValueAsString(mn));
+    }
+
+    private Manifest remember(String url, Manifest m, Path body) {
+        memory.put(url, new Cached(m, body, System.currentTimeMillis()));
+        return m;
+    }
+
+    private static void write(Path target, String content) throws IOException {
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        Files.writeString(tmp, content, StandardCharsets.UTF_8);
+        FileUtil.atomicReplace(tmp, target);
+    }
+
+    private static String key(String url) {
+        byte[] h = FileUtil.newDigest("SHA-256").digest(url.getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(h, 0, 16);
+    }
+}
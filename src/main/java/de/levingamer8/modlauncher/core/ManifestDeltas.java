@@ -0,0 +1,94 @@
+package de.levingamer8.modlauncher.core;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.levingamer8.modlauncher.core.ManifestModels.*;
+
+import java.net.URI;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Client-Seite des Delta-Protokolls (schreibt der ManifestBuilder neben manifest.json):
+ * manifest.head.json = Manifest ohne files[], deltas/<v>.json = Änderungen von Version v zur nächsten.
+ *
+ * Wer schon eine Version installiert hat, lädt nur den Kopf und die Kette von der installierten
+ * packVersion bis zur aktuellen, statt die ganze files[] zu laden und durchzugehen.
+ * Fehlt ein Glied oder passt etwas nicht zusammen, gibt es keinen Plan -> Full-Sync.
+ */
+public class ManifestDeltas {
+
+    /** Zusammengefasste Änderungen: geänderte/neue Einträge (Pfad -> neuester Eintrag) + gelöschte Pfade. */
+    public record Plan(Map<String, ManifestFile> changed, Set<String> removed) {}
+
+    /** Schutz gegen Endlos-Ketten durch kaputte Server-Daten. */
+    private static final int MAX_CHAIN = 200;
+
+    private final HttpClientEx http;
+    private final ObjectMapper om;
+
+    public ManifestDeltas(HttpClientEx http, ObjectMapper om) {
+        this.http = http;
+        this.om = om;
+    }
+
+    /** .../manifest.json -> .../manifest.head.json; null, wenn die URL nicht auf .json endet. */
+    public static String headUrl(String manifestUrl) {
+        URI u = URI.create(manifestUrl);
+        String path = u.getPath();
+        if (path == null || !path.endsWith(".json")) return null;
+        String name = path.substring(path.lastIndexOf('/') + 1);
+        return u.resolve(name.substring(0, name.length() - ".json".length()) + ".head.json").toString();
+    }
+
+    public Optional<Plan> fetchPlan(String manifestUrl, String packId, int fromVersion, int toVersion, Consumer<String> log)
+            throws InterruptedException {
+        if (fromVersion >= toVersion) return Optional.empty();
+
+        Map<String, ManifestFile> changed = new LinkedHashMap<>();
+        Set<String> removed = new LinkedHashSet<>();
+
+        int v = fromVersion;
+        for (int steps = 0; v < toVersion; steps++) {
+            if (steps >= MAX_CHAIN) return broken(log, "zu lang");
+
+            String url = URI.create(manifestUrl).resolve("deltas/" + v + ".json").toString();
+            Delta d;
+            try {
+                d = om.readValue(http.getText(url), Delta.class);
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                if (CancellableTask.isCancellation(e)) throw new InterruptedException("Update abgebrochen");
+                return broken(log, "deltas/" + v + ".json nicht ladbar (" + e.getMessage() + ")");
+            }
+
+            if (d.fromVersion() != v || d.toVersion() <= v || d.toVersion() > toVersion
+                    || (d.packId() != null && !d.packId().equals(packId))) {
+                return broken(log, "deltas/" + v + ".json passt nicht (" + d.fromVersion() + " -> " + d.toVersion() + ")");
+            }
+
+            if (d.files() != null) {
+                for (ManifestFile f : d.files()) {
+                    if (f.path() == null) return broken(log, "deltas/" + v + ".json: Eintrag ohne path");
+                    changed.put(f.path(), f);
+                    removed.remove(f.path());
+                }
+            }
+            if (d.removed() != null) {
+                for (String p : d.removed()) {
+                    changed.remove(p);
+                    removed.add(p);
+                }
+            }
+            v = d.toVersion();
+        }
+
+        log.accept("Delta " + fromVersion + " -> " + toVersion + ": " + changed.size() + " geändert, " + removed.size() + " entfernt");
+        return Optional.of(new Plan(changed, removed));
+    }
+
+    private static Optional<Plan> broken(Consumer<String> log, String why) {
+        log.accept("Delta-Kette unterbrochen: " + why + " -> Full-Sync");
+        return Optional.empty();
+    }
+}
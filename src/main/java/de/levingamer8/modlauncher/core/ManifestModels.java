@@ -1,5 +1,6 @@
 package de.levingamer8.modlauncher.core;
 
+import java.util.LinkedHashSet;
 import java.util.List;
 
 public class ManifestModels {
@@ -27,8 +28,31 @@ public class ManifestModels {
             Download download
     ) {}
 
+    /**
+     * Änderungsliste einer Pack-Version zur nächsten (deltas/<fromVersion>.json neben manifest.json).
+     * files = hinzugefügt/geändert, removed = gelöschte Pfade.
+     */
+    public record Delta(
+            String packId,
+            int fromVersion,
+            int toVersion,
+            List<ManifestFile> files,
+            List<String> removed
+    ) {}
+
     public record Download(
             String type,          // url
-            String url
-    ) {}
+            String url,
+            List<String> mirrors  // optional, weitere URLs mit identischem Inhalt
+    ) {
+        /** url + mirrors, ohne Duplikate, in Manifest-Reihenfolge. */
+        public List<String> urls() {
+            LinkedHashSet<String> all = new LinkedHashSet<>();
+            if (url != null && !url.isBlank()) all.add(url);
+            if (mirrors != null) {
+                for (String m : mirrors) if (m != null && !m.isBlank()) all.add(m);
+            }
+            return List.copyOf(all);
+        }
+    }
 }
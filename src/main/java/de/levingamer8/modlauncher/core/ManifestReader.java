@@ -0,0 +1,81 @@
+package de.levingamer8.modlauncher.core;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import de.levingamer8.modlauncher.core.ManifestModels.Manifest;
+import de.levingamer8.modlauncher.core.ManifestModels.ManifestFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Liest manifest.json direkt von Platte, ohne das ganze Dokument in den Speicher zu holen.
+ *
+ * {@link #readHeader} liefert alles außer files[] (files = null), {@link #forEachFile} streamt die
+ * Einträge einzeln durch – bei Packs mit zehntausenden Dateien bleibt der Speicher so flach.
+ * Zwei Durchläufe über die Datei, weil "overrides" hinter "files" stehen darf.
+ */
+public final class ManifestReader {
+
+    @FunctionalInterface
+    public interface FileVisitor {
+        void visit(ManifestFile file) throws IOException;
+    }
+
+    private ManifestReader() {}
+
+    /** Manifest ohne files[]; unbekannte Felder schlagen fehl wie beim normalen Binden. */
+    public static Manifest readHeader(ObjectMapper om, Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file);
+             JsonParser p = om.getFactory().createParser(in)) {
+            expect(p.nextToken(), JsonToken.START_OBJECT, file);
+
+            ObjectNode header = om.createObjectNode();
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String name = p.currentName();
+                p.nextToken();
+                if ("files".equals(name)) {
+                    p.skipChildren(); // Einträge werden hier nur überlesen, nicht gebaut
+                } else {
+                    header.set(name, om.readTree(p));
+                }
+            }
+            return om.treeToValue(header, Manifest.class);
+        }
+    }
+
+    /** Ruft visitor für jeden Eintrag in files[] auf, in Manifest-Reihenfolge. */
+    public static void forEachFile(ObjectMapper om, Path file, FileVisitor visitor) throws IOException {
+        ObjectReader reader = om.readerFor(ManifestFile.class);
+        try (InputStream in = Files.newInputStream(file);
+             JsonParser p = om.getFactory().createParser(in)) {
+            expect(p.nextToken(), JsonToken.START_OBJECT, file);
+
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String name = p.currentName();
+                JsonToken value = p.nextToken();
+                if (!"files".equals(name) || value == JsonToken.VALUE_NULL) {
+                    p.skipChildren();
+                    continue;
+                }
+                expect(value, JsonToken.START_ARRAY, file);
+                JsonToken t;
+                while ((t = p.nextToken()) == JsonToken.START_OBJECT) {
+                    visitor.visit(reader.readValue(p));
+                }
+                expect(t, JsonToken.END_ARRAY, file);
+            }
+        }
+    }
+
+    private static void expect(JsonToken got, JsonToken want, Path file) throws IOException {
+        if (got != want) {
+            throw new IOException("Manifest ungültig (" + file.getFileName() + "): erwartet " + want + ", gefunden " + got);
+        }
+    }
+}
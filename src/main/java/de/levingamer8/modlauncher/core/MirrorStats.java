@@ -0,0 +1,95 @@
+package de.levingamer8.modlauncher.core;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Latenz (bis zu den Response-Headern) und Durchsatz pro Mirror-Host, als gleitender Mittelwert.
+ * Daraus ergibt sich die Reihenfolge, in der Mirrors probiert werden, und die Deadline fürs Hedging.
+ */
+public class MirrorStats {
+
+    /** Gewicht neuer Messwerte im gleitenden Mittel. */
+    private static final double ALPHA = 0.3;
+    /** Referenzgröße für die Bewertung: geschätzte Zeit für 1 MiB. */
+    private static final double REF_BYTES = 1024 * 1024;
+
+    private static final Duration HEDGE_MIN = Duration.ofMillis(1500);
+    private static final Duration HEDGE_MAX = Duration.ofSeconds(5);
+
+    private static final class Stat {
+        double latencyMs = -1;
+        double bytesPerMs = -1;
+    }
+
+    private final ConcurrentHashMap<String, Stat> hosts = new ConcurrentHashMap<>();
+    private final CircuitBreaker breaker;
+
+    public MirrorStats(CircuitBreaker breaker) {
+        this.breaker = breaker;
+    }
+
+    public void recordLatency(String url, long millis) {
+        Stat s = stat(url);
+        synchronized (s) {
+            s.latencyMs = s.latencyMs < 0 ? millis : s.latencyMs + ALPHA * (millis - s.latencyMs);
+        }
+    }
+
+    /** Nur sinnvoll für größere Bodies; winzige Dateien sagen nichts über die Bandbreite. */
+    public void recordTransfer(String url, long bytes, long millis) {
+        if (bytes < 64 * 1024 || millis <= 0) return;
+        Stat s = stat(url);
+        synchronized (s) {
+            double v = (double) bytes / millis;
+            s.bytesPerMs = s.bytesPerMs < 0 ? v : s.bytesPerMs + ALPHA * (v - s.bytesPerMs);
+        }
+    }
+
+    /** Schnellste zuerst; gesperrte Hosts ans Ende; ungemessene behalten ihre Manifest-Reihenfolge hinter den gemessenen. */
+    public List<String> order(List<String> urls) {
+        if (urls.size() < 2) return urls;
+        List<String> out = new ArrayList<>(urls);
+        out.sort(Comparator
+                .comparing((String u) -> breaker.isOpen(host(u)))
+                .thenComparingDouble(this::score));
+        return out;
+    }
+
+    /** Wie lange auf die Header des ersten Mirrors gewartet wird, bevor ein zweiter mitläuft. */
+    public Duration hedgeDeadline(String url) {
+        Stat s = hosts.get(host(url));
+        if (s == null) return HEDGE_MAX;
+        double lat;
+        synchronized (s) {
+            lat = s.latencyMs;
+        }
+        if (lat < 0) return HEDGE_MAX;
+        long ms = Math.round(lat * 3);
+        return Duration.ofMillis(Math.max(HEDGE_MIN.toMillis(), Math.min(HEDGE_MAX.toMillis(), ms)));
+    }
+
+    private double score(String url) {
+        Stat s = hosts.get(host(url));
+        if (s == null) return Double.MAX_VALUE;
+        synchronized (s) {
+            if (s.latencyMs < 0) return Double.MAX_VALUE;
+            double transfer = s.bytesPerMs > 0 ? REF_BYTES / s.bytesPerMs : 0;
+            return s.latencyMs + transfer;
+        }
+    }
+
+    private Stat stat(String url) {
+        return hosts.computeIfAbsent(host(url), h -> new Stat());
+    }
+
+    private static String host(String url) {
+        try {
+            return HttpTransport.host(URI.create(url));
+        } catch (IllegalArgumentException e) {
+            return "";
+        }
+    }
+}
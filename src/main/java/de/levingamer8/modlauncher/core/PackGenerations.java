@@ -0,0 +1,262 @@
+package de.levingamer8.modlauncher.core;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Generationen der Pack-Dateien einer Instanz: instances/<name>/generations/<id>/.
+ *
+ * Ein Update baut zuerst eine neue Generation im Staging-Ordner auf (nur Hardlinks auf Blobs,
+ * unveränderte Dateien kosten also nichts), danach wird game/ auf sie gebracht. Archive ({@link #linkable}:
+ * Mods, Resource-/Shaderpacks) kommen ebenfalls als Hardlink nach game/ – die liest das Spiel nur, und sie
+ * machen fast den ganzen Platz aus. Alles andere (Configs, Skripte, ...) wird kopiert: das schreiben Spiel
+ * und User in-place um, und das darf weder Blob noch Generation verändern.
+ * Wird ein verlinktes Archiv doch in-place verändert, fällt das über die Hashes auf: der Blob-Index verwirft
+ * den Blob ({@link BlobStore#has}), activate verweigert die Generation, ein Update lädt die Datei neu.
+ *
+ * Das ist KEINE atomare Umschaltung: {@link #activate} kopiert Datei für Datei (jede einzelne per rename,
+ * also nie halb geschrieben) und entfernt danach, was nur die Vorgängerversion hatte. Vorher wird
+ * generations/pending gesetzt; bricht activate ab, steht game/ bis zum nächsten Lauf gemischt zwischen
+ * beiden Versionen, und der nächste Lauf wiederholt activate einfach (idempotent: passende Dateien werden
+ * übersprungen). Erst danach wird generations/current (per rename) umgesetzt.
+ *
+ * Ältere Generationen bleiben liegen (KEEP_PREVIOUS), Rollback braucht damit keinen Download – es ist
+ * dasselbe activate in die andere Richtung, kopiert also die Dateien neu, die sich unterscheiden.
+ * game/ selbst bleibt ein normaler Ordner (Saves, Optionen, Logs vom User) – angefasst werden
+ * nur die Pack-Dateien darin; vom User geänderte Pack-Dateien werden nicht gelöscht.
+ */
+public class PackGenerations {
+
+    /** Metadaten einer Generation (generations/<id>/generation.json). files: Pfad -> sha256. */
+    public record Generation(String id, String packId, int packVersion, String createdAt, Map<String, String> files) {}
+
+    /** Wie viele ältere Generationen neben der aktiven behalten werden. */
+    private static final int KEEP_PREVIOUS = 3;
+
+    private static final String META = "generation.json";
+
+    private final Path root;
+    private final ObjectMapper om = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    public PackGenerations(Path instanceDir) {
+        this.root = instanceDir.resolve("generations");
+    }
+
+    public Path dir(String id) {
+        return root.resolve(id);
+    }
+
+    public Optional<Generation> current() {
+        return readPointer("current").flatMap(this::read);
+    }
+
+    /** Unterbrochene Umschaltung (Crash/Abbruch während activate). */
+    public Optional<Generation> pending() {
+        return readPointer("pending").flatMap(this::read);
+    }
+
+    public Optional<Generation> read(String id) {
+        Path meta = dir(id).resolve(META);
+        if (!Files.exists(meta)) return Optional.empty();
+        try {
+            return Optional.of(om.readValue(meta.toFile(), Generation.class));
+        } catch (Exception e) {
+            return Optional.empty();
+        }
+    }
+
+    /** Alle vollständigen Generationen, älteste zuerst (ids beginnen mit dem Zeitstempel). */
+    public List<Generation> list() throws IOException {
+        if (!Files.isDirectory(root)) return List.of();
+        List<Generation> out = new ArrayList<>();
+        try (var s = Files.list(root)) {
+            for (Path p : s.filter(Files::isDirectory).sorted().toList()) {
+                read(p.getFileName().toString()).ifPresent(out::add);
+            }
+        }
+        return out;
+    }
+
+    /** Neuer, leerer Staging-Ordner. */
+    public String newStagingId(int packVersion) throws IOException {
+        String id = System.currentTimeMillis() + "-v" + packVersion;
+        Files.createDirectories(dir(id));
+        return id;
+    }
+
+    /** Legt im Staging-Ordner einen Link auf src (Blob) an (Fallback: Kopie). */
+    public void stage(String id, String relPath, Path src) throws IOException {
+        FileUtil.linkOrCopy(src, dir(id).resolve(relPath).normalize());
+    }
+
+    /** Wie {@link #stage}, aber immer als Kopie – für Quellen, die sich ändern können (Dateien aus game/). */
+    public void stageCopy(String id, String relPath, Path src, String sha256) throws IOException {
+        String got = FileUtil.copyVerified(src, dir(id).resolve(relPath).normalize(), "SHA-256", sha256);
+        if (!got.equalsIgnoreCase(sha256)) {
+            throw new IOException(relPath + " hat sich beim Übernehmen geändert (erwartet " + sha256 + ", ist " + got + ")");
+        }
+    }
+
+    /** Staging-Ordner verwerfen (z.B. weil er nichts Neues enthält). Die aktive Generation bleibt. */
+    public void discard(String id) throws IOException {
+        if (readPointer("current").filter(id::equals).isPresent()) return;
+        FileUtil.deleteRecursive(dir(id));
+    }
+
+    /** Unterbrochene Umschaltung aufgeben; current zeigt weiter auf die zuletzt vollständig aktive Generation. */
+    public void clearPending() throws IOException {
+        Files.deleteIfExists(root.resolve("pending"));
+    }
+
+    /** Schließt das Staging ab:erst mit generation.json gilt die Generation als vollständig. */
+    public Generation seal(String id, String packId, int packVersion, Map<String, String> files) throws IOException {
+        Generation g = new Generation(id, packId, packVersion, Instant.now().toString(), new TreeMap<>(files));
+        Path meta = dir(id).resolve(META);
+        Path tmp = meta.resolveSibling(META + ".tmp");
+        om.writeValue(tmp.toFile(), g);
+        FileUtil.atomicReplace(tmp, meta);
+        return g;
+    }
+
+    /** Archive, die nur gelesen werden -> in game/ als Hardlink statt als Kopie. */
+    public static boolean linkable(String relPath) {
+        String p = relPath.toLowerCase(Locale.ROOT);
+        return p.endsWith(".jar") || p.endsWith(".zip");
+    }
+
+    /**
+     * Bringt game/ auf den Stand der Generation target:
+     * geänderte/fehlende Pack-Dateien werden aus dem Generationsordner verlinkt bzw. kopiert ({@link #linkable})
+     * und dabei gegen den Hash der Generation geprüft, Pfade, die nur die vorherige Generation hatte, werden entfernt – aber nur,
+     * wenn sie noch unverändert sind (wie beim Ledger). Erst danach wird current umgesetzt; bis dahin steht
+     * pending, siehe Klassendoku.
+     */
+    public void activate(Generation target, Path installDir, FileIndex index, Consumer<String> log) throws IOException {
+        writePointer("pending", target.id());
+
+        Generation previous = current().filter(g -> !g.id().equals(target.id())).orElse(null);
+        Path game = installDir.toAbsolutePath().normalize();
+
+        int written = 0;
+        for (var e : target.files().entrySet()) {
+            Path dst = game.resolve(e.getKey()).normalize();
+            if (!dst.startsWith(game)) throw new SecurityException("Pfad verlässt Installationsordner: " + e.getKey());
+
+            Path src = dir(target.id()).resolve(e.getKey());
+            boolean link = linkable(e.getKey());
+            // passt schon; Configs, die noch auf die Generation zeigen, und Archiv-Kopien werden einmalig umgestellt
+            if (Files.exists(dst) && index.sha256(dst).equalsIgnoreCase(e.getValue()) && isSameFile(src, dst) == link) continue;
+
+            // Hash dabei prüfen: eine Generation, die über einen Hardlink verändert wurde,
+            // darf nicht als "richtig" in den Index wandern
+            String got;
+            try {
+                got = link
+                        ? FileUtil.linkVerified(src, dst, "SHA-256", e.getValue())
+                        : FileUtil.copyVerified(src, dst, "SHA-256", e.getValue());
+            } catch (NoSuchFileException ex) {
+                throw new IOException("Generation " + target.id() + " unvollständig: " + e.getKey() + " fehlt", ex);
+            }
+            if (!got.equalsIgnoreCase(e.getValue())) {
+                throw new IOException("Generation " + target.id() + " beschädigt: " + e.getKey()
+                        + " (erwartet " + e.getValue() + ", ist " + got + ") – bitte Update ausführen");
+            }
+            index.put(dst, got);
+            written++;
+        }
+
+        // gleiche Regel wie beim Ledger: nur löschen, was noch so aussieht, wie die Vorgängerversion es hinterlassen hat
+        int removed = previous == null ? 0 : ManagedLedger.removeStale(
+                ManagedLedger.of(previous.files(), Map.of()), ManagedLedger.of(target.files(), Map.of()),
+                installDir, index, log);
+
+        writePointer("current", target.id());
+        Files.deleteIfExists(root.resolve("pending"));
+        log.accept("Generation " + target.id() + " aktiv (" + written + " aktualisiert, " + removed + " entfernt)");
+    }
+
+    /**
+     * Die letzte Generation vor der aktiven, die sich von ihr unterscheidet (für Rollback).
+     * Identische Generationen (gleiche Version + Dateien) werden übersprungen, sonst wäre Rollback ein No-op.
+     */
+    public Optional<Generation> previous() throws IOException {
+        Generation cur = current().orElse(null);
+        if (cur == null) return Optional.empty();
+        Generation prev = null;
+        for (Generation g : list()) {
+            if (g.id().equals(cur.id())) return Optional.ofNullable(prev);
+            if (!sameContent(g, cur)) prev = g;
+        }
+        return Optional.empty();
+    }
+
+    /** Gleiche Pack-Version mit denselben Dateien? Dann bräuchte es keine neue Generation. */
+    public static boolean sameContent(Generation g, String packId, int packVersion, Map<String, String> files) {
+        return Objects.equals(g.packId(), packId) && g.packVersion() == packVersion && g.files().equals(files);
+    }
+
+    private static boolean sameContent(Generation a, Generation b) {
+        return sameContent(a, b.packId(), b.packVersion(), b.files());
+    }
+
+    private static boolean isSameFile(Path a, Path b) {
+        try {
+            return Files.isSameFile(a, b);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /** Löscht alte Generationen und abgebrochene Staging-Ordner; behält current + KEEP_PREVIOUS davor. */
+    public void prune(Consumer<String> log) throws IOException {
+        if (!Files.isDirectory(root)) return;
+        String cur = readPointer("current").orElse(null);
+        String pend = readPointer("pending").orElse(null);
+
+        List<Generation> all = list();
+        Set<String> keep = new HashSet<>();
+        if (cur != null) keep.add(cur);
+        if (pend != null) keep.add(pend);
+
+        int curIdx = -1;
+        for (int i = 0; i < all.size(); i++) if (all.get(i).id().equals(cur)) curIdx = i;
+        for (int i = Math.max(0, curIdx - KEEP_PREVIOUS); i < all.size(); i++) {
+            // neuere (nach Rollback) und die letzten KEEP_PREVIOUS davor bleiben
+            keep.add(all.get(i).id());
+        }
+
+        try (var s = Files.list(root)) {
+            for (Path p : s.filter(Files::isDirectory).toList()) {
+                String id = p.getFileName().toString();
+                if (keep.contains(id)) continue;
+                FileUtil.deleteRecursive(p);
+                log.accept("Alte Generation entfernt: " + id);
+            }
+        }
+    }
+
+    private Optional<String> readPointer(String name) {
+        Path f = root.resolve(name);
+        if (!Files.exists(f)) return Optional.empty();
+        try {
+            String id = Files.readString(f, StandardCharsets.UTF_8).trim();
+            return id.isEmpty() ? Optional.empty() : Optional.of(id);
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    private void writePointer(String name, String id) throws IOException {
+        Files.createDirectories(root);
+        Path tmp = root.resolve(name + ".tmp");
+        Files.writeString(tmp, id, StandardCharsets.UTF_8);
+        FileUtil.atomicReplace(tmp, root.resolve(name));
+    }
+}
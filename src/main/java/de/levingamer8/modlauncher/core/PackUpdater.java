@@ -4,31 +4,59 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import de.levingamer8.modlauncher.core.ManifestModels.*;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.nio.channels.FileChannel;
 import java.nio.file.*;
 import java.util.*;
-import java.util.function.BiConsumer;
+import java.util.concurrent.*;
 import java.util.function.Consumer;
-import java.util.stream.Collectors;
 
 public class PackUpdater {
 
+    /** Parallele Downloads, wenn das Profil nichts angibt. */
+    private static final int DEFAULT_DOWNLOAD_THREADS = 6;
+    private static final int MAX_DOWNLOAD_THREADS = 32;
+    /** Wie viele Pack-Dateien je Download-Thread höchstens in der Pool-Queue warten. */
+    private static final int IN_FLIGHT_PER_THREAD = 4;
+
     private final ObjectMapper om = new ObjectMapper();
     private final HttpClientEx http = new HttpClientEx();
     private final StateStore stateStore = new StateStore();
+    private final ManifestDeltas deltas = new ManifestDeltas(http, om);
+    /** Server ohne manifest.head.json (404) -> Kopf und Deltas gar nicht erst versuchen. */
+    private final Set<String> noHead = ConcurrentHashMap.newKeySet();
+    private ManifestCache manifestCache;
+
+    /**
+     * Wie {@link #update}, aber auf eigenem Thread. cancel(true) auf dem Ergebnis unterbricht laufende
+     * Downloads und Hashing sofort; Teildownloads werden dabei gelöscht, das Journal bleibt für ein späteres Update.
+     * Bricht dagegen nur ein einzelner Download mit Fehler ab, bleiben die .part-Dateien der anderen liegen.
+     * Lässt sich mit weiteren Schritten verketten (z.B. thenCompose zum Start).
+     */
+    public CancellableTask<Void> updateAsync(ProfileStore.Profile profile,
+                                             ProfileStore profileStore,
+                                             Consumer<String> log,
+                                             DownloadProgress.Listener progress) {
+        return CancellableTask.start("pack-updater", () -> {
+            update(profile, profileStore, log, progress);
+            return null;
+        });
+    }
 
     public void update(ProfileStore.Profile profile,
                        ProfileStore profileStore,
                        Consumer<String> log,
-                       BiConsumer<Long, Long> progress) throws Exception {
+                       DownloadProgress.Listener progress) throws Exception {
+
+        DownloadProgress dp = new DownloadProgress(progress);
+        HttpTransport.shared().limiter().setLimitKbps(profile.downloadLimitKbps());
 
         String manifestUrl = profile.manifestUrl();
         log.accept("Manifest laden: " + manifestUrl);
 
-        Manifest manifest = fetchManifest(manifestUrl);
-        if (manifest.packId() == null || manifest.packId().isBlank()) {
-            throw new IllegalArgumentException("manifest.packId fehlt");
-        }
+        // erst nur der Kopf (manifest.head.json); files[] wird nur geladen, wenn kein Delta passt
+        ManifestCache.Result head = fetchManifestHead(profileStore, manifestUrl, log);
+        Manifest headManifest = requirePackId(head.manifest());
 
         // Instanzordner wird am Profilnamen festgemacht (nicht packId), damit du Profile umbenennen kannst, wenn du willst.
         Path instanceDir = profileStore.instanceDir(profile.name());
@@ -45,124 +73,453 @@ public class PackUpdater {
         try (FileChannel ch = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
              var ignored = ch.lock()) {
 
+            PackGenerations gens = new PackGenerations(instanceDir);
+            // Fingerprints: unveränderte Dateien werden nicht neu gehasht
+            FileIndex index = FileIndex.load(installDir, instanceDir.resolve(".state/file-index.json"));
+            recoverPending(gens, instanceDir, installDir, index, log);
+
             Optional<Integer> installed = stateStore.readInstalledPackVersion(instanceDir);
             log.accept("Installiert: " + installed.map(String::valueOf).orElse("nichts") +
-                    " | Manifest packVersion: " + manifest.packVersion());
+                    " | Manifest packVersion: " + headManifest.packVersion());
 
-            // Schritt 1: Dateien syncen
-            List<ManifestFile> clientFiles = (manifest.files() == null ? List.<ManifestFile>of() : manifest.files())
-                    .stream()
-                    .filter(f -> isClientSide(f.side()))
-                    .toList();
+            boolean samePack = stateStore.readInstalledPackId(instanceDir).filter(headManifest.packId()::equals).isPresent();
 
-            long total = clientFiles.size() + (manifest.overrides() != null ? 1 : 0);
-            long done = 0;
-            progress.accept(done, total);
+            // Manifest unverändert (304) und genau diese Version installiert -> nichts zu tun
+            if (head.notModified() && samePack && installed.filter(v -> v == headManifest.packVersion()).isPresent()) {
+                log.accept("Manifest unverändert, packVersion " + headManifest.packVersion() + " ist installiert -> Sync übersprungen");
+                UpdateJournal.discard(instanceDir);
+                dp.phase("Pack").finish();
+                return;
+            }
 
-            for (ManifestFile f : clientFiles) {
-                done++;
-                progress.accept(done, total);
+            // Schritt 1: neue Generation im Staging-Ordner aufbauen (game/ bleibt dabei unangetastet)
+            Optional<PackGenerations.Generation> currentGen = gens.current();
+
+            ManagedLedger ledger = ManagedLedger.load(instanceDir);
+
+            BlobStore blobs = BlobStore.of(profileStore.sharedBlobsDir());
+
+            // Delta: Instanz steht sauber auf einer älteren Version desselben Packs -> nur die Änderungen laden,
+            // sonst (oder wenn die Kette reißt) die ganze files[] aus manifest.json
+            Optional<ManifestDeltas.Plan> plan = deltaPlan(manifestUrl, headManifest, samePack, installed, currentGen, ledger, blobs, log);
+            ManifestCache.Result fetched = plan.isPresent() ? head : fetchManifest(profileStore, manifestUrl, log);
+            Manifest manifest = requirePackId(fetched.manifest());
+            FileSource files = plan.isPresent()
+                    ? v -> { for (ManifestFile f : plan.get().changed().values()) v.visit(f); }
+                    : v -> fetched.forEachFile(om, v);
+
+            // Abgebrochenes Update derselben Version? Dann im selben Staging-Ordner weitermachen.
+            try (UpdateJournal journal = UpdateJournal.open(instanceDir, manifest.packId(), manifest.packVersion())) {
+                Optional<String> resumeId = journal.stagingId().filter(id -> Files.isDirectory(gens.dir(id)));
+                String stagingId = resumeId.isPresent() ? resumeId.get() : gens.newStagingId(manifest.packVersion());
+                journal.begin(manifest.packId(), manifest.packVersion(), stagingId);
+                if (resumeId.isPresent()) {
+                    log.accept("Unterbrochenes Update wird fortgesetzt (" + journal.stagedCount() + " Dateien schon erledigt)");
+                }
+                Map<String, String> genFiles = new LinkedHashMap<>();
+                DownloadProgress.Phase packPhase = dp.phase("Pack");
+
+                int threads = downloadThreads(profile);
+                log.accept("Sync: " + threads + " parallel");
+                // Worker erben die Bindung an den Task nicht von selbst (User-Abbruch vs. Pool-Stopp, siehe HttpClientEx)
+                CancellableTask<?> task = CancellableTask.current();
+
+                ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+                    Thread t = new Thread(r, "pack-download");
+                    t.setDaemon(true);
+                    return t;
+                });
+                try {
+                    if (plan.isPresent()) {
+                        // Delta: alles Unveränderte kommt aus dem BlobStore (deltaPlan hat geprüft, dass es da ist)
+                        for (var e : currentGen.get().files().entrySet()) {
+                            if (plan.get().changed().containsKey(e.getKey()) || plan.get().removed().contains(e.getKey())) continue;
+                            genFiles.put(e.getKey(), e.getValue());
+                            if (journal.isStaged(e.getKey(), e.getValue())
+                                    && Files.isRegularFile(gens.dir(stagingId).resolve(e.getKey()).normalize())) {
+                                continue;
+                            }
+                            gens.stage(stagingId, e.getKey(), blobs.blobPath(e.getValue()));
+                            journal.staged(e.getKey(), e.getValue());
+                        }
+                    }
 
-                if (f.path() == null || f.path().isBlank()) {
-                    throw new IllegalArgumentException("Datei hat kein path im Manifest");
+                    // Erster Durchlauf nur lesen: kaputte Einträge brechen ab, bevor irgendwas geladen wird,
+                    // und die Gesamtgröße steht fest, statt während des Streamens zu wachsen (ETA springt sonst).
+                    long[] expected = new long[2];
+                    files.forEach(f -> {
+                        if (!isClientSide(f.side())) return;
+                        validateFile(f, installDir);
+                        expected[0] += Math.max(0, f.size());
+                        expected[1]++;
+                    });
+                    // Manifest kennt die Größen -> Fortschritt in Bytes statt in Dateien
+                    packPhase.expect(expected[0], (int) expected[1]);
+
+                    // files[] wird gestreamt: Einträge gehen direkt in den Pool, das Manifest liegt nie komplett im Speicher.
+                    // Der Pool hat eine unbegrenzte Queue -> höchstens threads*4 Tasks gleichzeitig unterwegs (wartet sonst
+                    // hier), und fertige Futures werden unterwegs aussortiert statt für alle Dateien gesammelt.
+                    Semaphore inFlight = new Semaphore(threads * IN_FLIGHT_PER_THREAD);
+                    List<Future<?>> futures = new ArrayList<>();
+                    int[] submitted = {0};
+                    files.forEach(f -> {
+                        if (Thread.currentThread().isInterrupted()) throw new InterruptedIOException("Update abgebrochen");
+                        // ein Task ist schon gescheitert -> nichts Neues anfangen, awaitAll unten wirft den Fehler
+                        futures.removeIf(fu -> fu.state() == Future.State.SUCCESS);
+                        if (futures.stream().anyMatch(fu -> fu.state() == Future.State.FAILED)) return;
+                        if (!isClientSide(f.side())) return;
+                        genFiles.put(f.path(), f.sha256().toLowerCase(Locale.ROOT));
+
+                        // laut Journal schon gestagt -> nichts prüfen, nichts hashen
+                        if (journal.isStaged(f.path(), f.sha256())
+                                && Files.isRegularFile(gens.dir(stagingId).resolve(f.path()).normalize())) {
+                            packPhase.fileDone(Math.max(0, f.size()));
+                            return;
+                        }
+
+                        // Blob schon da (Stat-Check) -> nur verlinken; der Rest geht in den Download-Pool
+                        if (blobs.has(f.sha256())) {
+                            gens.stage(stagingId, f.path(), blobs.blobPath(f.sha256()));
+                            journal.staged(f.path(), f.sha256());
+                            packPhase.fileDone(Math.max(0, f.size()));
+                            return;
+                        }
+
+                        try {
+                            inFlight.acquire();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new InterruptedIOException("Update abgebrochen");
+                        }
+                        submitted[0]++;
+                        futures.add(pool.submit(() -> {
+                            // Mods sind nicht startkritisch -> Libraries/Client-Jar eines parallelen Starts gehen vor
+                            try (var b = packPhase.bind(); var prio = DownloadPriority.FOREGROUND.bind();
+                                 var c = task == null ? null : task.bind()) {
+                                boolean downloaded = stageFile(f, installDir, index, blobs, gens, stagingId, journal, log);
+                                packPhase.fileDone(downloaded ? 0 : Math.max(0, f.size()));
+                            } finally {
+                                inFlight.release();
+                            }
+                            return null;
+                        }));
+                    });
+                    log.accept("Sync: " + genFiles.size() + " Dateien (" + submitted[0] + " zu prüfen/laden)");
+                    awaitAll(futures);
+                } finally {
+                    // bei Fehler laufende Downloads abbrechen und warten, bevor der Lock freigegeben wird
+                    pool.shutdownNow();
+                    // bei Abbruch ist der Interrupt noch gesetzt -> trotzdem auf die Worker warten, dann wieder setzen
+                    boolean interrupted = Thread.interrupted();
+                    try {
+                        pool.awaitTermination(30, TimeUnit.SECONDS);
+                        index.save(); // auch bei Fehler: bereits geprüfte Dateien nicht nochmal hashen
+                        blobs.save();
+                    } finally {
+                        if (interrupted) Thread.currentThread().interrupt();
+                    }
                 }
-                if (f.sha256() == null || f.sha256().isBlank()) {
-                    throw new IllegalArgumentException("Datei " + f.path() + " hat kein sha256 im Manifest");
+                packPhase.finish();
+
+                // Schritt 2: Generation versiegeln und game/ umschalten.
+                // Gleicher Inhalt wie die aktive Generation -> keine neue anlegen, sonst verdrängt prune()
+                // die echte Vorgängerversion und Rollback hätte nichts mehr zum Zurücksetzen.
+                PackGenerations.Generation gen = null;
+                Optional<PackGenerations.Generation> unchanged = currentGen
+                        .filter(g -> !g.id().equals(stagingId))
+                        .filter(g -> PackGenerations.sameContent(g, manifest.packId(), manifest.packVersion(), genFiles));
+                if (unchanged.isPresent()) {
+                    try {
+                        gens.activate(unchanged.get(), installDir, index, log);
+                        gen = unchanged.get();
+                        gens.discard(stagingId);
+                        log.accept("Pack-Dateien unverändert -> Generation " + gen.id() + " bleibt aktiv");
+                    } catch (IOException e) {
+                        // z.B. über einen alten Hardlink verändert -> die frisch gestagte Generation nehmen
+                        log.accept("Aktive Generation unbrauchbar (" + e.getMessage() + ") -> neue wird angelegt");
+                    }
                 }
-                if (f.download() == null || f.download().url() == null || f.download().url().isBlank()) {
-                    throw new IllegalArgumentException("Datei " + f.path() + " hat keine download.url im Manifest");
+                if (gen == null) {
+                    gen = gens.seal(stagingId, manifest.packId(), manifest.packVersion(), genFiles);
+                    gens.activate(gen, installDir, index, log);
                 }
 
-                Path target = installDir.resolve(f.path()).normalize();
-                if (!target.startsWith(installDir.normalize())) {
-                    throw new SecurityException("Pfad verlässt Installationsordner: " + f.path());
-                }
-                boolean ok = Files.exists(target) && FileUtil.sha256(target).equalsIgnoreCase(f.sha256());
-                if (ok) {
-                    log.accept("OK: " + f.path());
-                    continue;
+                index.save();
+                gens.prune(log);
+
+                // Schritt 3: overrides.zip (configs usw.) – nur wenn sich das Archiv geändert hat, und dann nur geänderte Einträge
+                String appliedOverrides = stateStore.readAppliedOverridesSha256(instanceDir).orElse(null);
+                Map<String, Long> previousOverrideCrcs = stateStore.readOverridesIndex(instanceDir);
+                Map<String, Long> overrideCrcs = Map.of();
+                if (manifest.overrides() != null && manifest.overrides().url() != null && !manifest.overrides().url().isBlank()) {
+                    Overrides o = manifest.overrides();
+                    if (o.sha256() == null || o.sha256().isBlank()) {
+                        throw new IllegalArgumentException("overrides.sha256 fehlt");
+                    }
+
+                    if (o.sha256().equalsIgnoreCase(appliedOverrides) || journal.overridesApplied(o.sha256())) {
+                        log.accept("Overrides unverändert -> übersprungen");
+                        overrideCrcs = previousOverrideCrcs;
+                        appliedOverrides = o.sha256();
+                    } else {
+                        log.accept("Overrides downloaden: " + o.url());
+                        Path tmpZip = instanceDir.resolve("downloads").resolve("overrides-" + o.sha256().toLowerCase(Locale.ROOT) + ".zip");
+                        String got;
+                        try (var b = dp.phase("Overrides").bind()) {
+                            got = http.downloadToFile(o.url(), tmpZip).hash();
+                        }
+                        if (!got.equalsIgnoreCase(o.sha256())) {
+                            HttpClientEx.discardPart(tmpZip);
+                            throw new IOException("Overrides hash mismatch expected=" + o.sha256() + " got=" + got);
+                        }
+
+                        log.accept("Overrides anwenden...");
+                        FileUtil.ZipApplyResult r = FileUtil.unzipIncremental(tmpZip, installDir, previousOverrideCrcs);
+                        stateStore.writeOverridesIndex(instanceDir, r.crcs());
+                        overrideCrcs = r.crcs();
+                        journal.overrides(o.sha256());
+                        Files.deleteIfExists(tmpZip);
+                        appliedOverrides = o.sha256();
+                        log.accept("Overrides angewendet: " + r.written() + " geschrieben, " + r.skipped() + " unverändert.");
+                    }
+                    dp.phase("Overrides").finish();
                 }
 
-                log.accept("Download: " + f.path());
-                Path tmp = instanceDir.resolve("downloads").resolve("dl-" + System.nanoTime() + ".part");
-                http.downloadToFile(f.download().url(), tmp);
+                // Schritt 4: was die alte Version installiert hat und die neue nicht mehr -> weg (User-Dateien stehen nie im Ledger)
+                Map<String, String> managed = ManagedLedger.of(genFiles, overrideCrcs);
+                Map<String, String> previous = ledger.exists()
+                        ? ledger.files()
+                        : seedLedger(currentGen, previousOverrideCrcs, index);
+                int removed = ManagedLedger.removeStale(previous, managed, installDir, index, log);
+                ledger.save(manifest.packVersion(), managed);
+                index.save();
+                if (removed > 0) log.accept("Aufgeräumt: " + removed + " Dateien");
+
+                // Schritt 5: State schreiben
+                stateStore.writeState(instanceDir, manifest.packId(), manifest.packVersion(), appliedOverrides);
+                journal.commit();
+                log.accept("State geschrieben: packVersion=" + manifest.packVersion());
+            }
+        }
+    }
+
+    private void validateFile(ManifestFile f, Path installDir) {
+        if (f.path() == null || f.path().isBlank()) {
+            throw new IllegalArgumentException("Datei hat kein path im Manifest");
+        }
+        if (f.sha256() == null || f.sha256().isBlank()) {
+            throw new IllegalArgumentException("Datei " + f.path() + " hat kein sha256 im Manifest");
+        }
+        if (f.download() == null || f.download().url() == null || f.download().url().isBlank()) {
+            throw new IllegalArgumentException("Datei " + f.path() + " hat keine download.url im Manifest");
+        }
 
-                String got = FileUtil.sha256(tmp);
-                if (!got.equalsIgnoreCase(f.sha256())) {
-                    Files.deleteIfExists(tmp);
-                    throw new IOException("Hash mismatch: " + f.path() + " expected=" + f.sha256() + " got=" + got);
-                }
+        Path target = installDir.resolve(f.path()).normalize();
+        if (!target.startsWith(installDir.normalize())) {
+            throw new SecurityException("Pfad verlässt Installationsordner: " + f.path());
+        }
+    }
 
-                FileUtil.atomicReplace(tmp, target);
-                log.accept("Installiert: " + f.path());
+    /**
+     * Holt eine Datei für die Staging-Generation: aus game/ übernehmen, wenn sie dort schon stimmt,
+     * sonst aus dem Blob-Store (Download nur, wenn auch dort nicht vorhanden).
+     * Läuft parallel im Download-Pool.
+     *
+     * @return true, wenn wirklich geladen wurde (die Bytes hat dann schon der Download gemeldet)
+     */
+    private boolean stageFile(ManifestFile f, Path installDir, FileIndex index, BlobStore blobs,
+                           PackGenerations gens, String stagingId, UpdateJournal journal, Consumer<String> log) throws Exception {
+        Path existing = installDir.resolve(f.path()).normalize();
+        if (Files.exists(existing) && index.sha256(existing).equalsIgnoreCase(f.sha256())) {
+            // vorhandene Datei für andere Profile verfügbar machen
+            blobs.adopt(f.sha256(), existing);
+            if (blobs.has(f.sha256())) {
+                gens.stage(stagingId, f.path(), blobs.blobPath(f.sha256()));
+            } else {
+                // Blob ließ sich nicht anlegen -> Kopie, damit die Generation nicht an game/ hängt
+                gens.stageCopy(stagingId, f.path(), existing, f.sha256());
             }
+            journal.staged(f.path(), f.sha256());
+            log.accept("OK: " + f.path());
+            return false;
+        }
 
-            // Schritt 2: cleanup mods (löscht extra .jar in mods/)
-            cleanupMods(installDir, clientFiles, log);
+        boolean downloaded = blobs.ensure(f.sha256(), f.download().urls(), http);
+        if (downloaded) {
+            log.accept("Download: " + f.path());
+        } else {
+            log.accept("Aus Cache: " + f.path());
+        }
 
+        gens.stage(stagingId, f.path(), blobs.blobPath(f.sha256()));
+        journal.staged(f.path(), f.sha256());
+        log.accept("Bereit: " + f.path());
+        return downloaded;
+    }
 
+    /** Crash/Abbruch mitten im Umschalten -> Umschaltung wiederholen, damit game/ wieder konsistent ist. */
+    private void recoverPending(PackGenerations gens, Path instanceDir, Path installDir, FileIndex index, Consumer<String> log) throws IOException {
+        Optional<PackGenerations.Generation> pending = gens.pending();
+        if (pending.isEmpty()) return;
+
+        PackGenerations.Generation g = pending.get();
+        log.accept("Unterbrochene Umschaltung auf Generation " + g.id() + " -> wird abgeschlossen");
+        try {
+            gens.activate(g, installDir, index, log);
+        } catch (IOException e) {
+            // Generation selbst kaputt: nicht bei jedem Start erneut scheitern, der nächste Sync baut neu auf
+            log.accept("Umschaltung nicht wiederholbar (" + e.getMessage() + ") -> wird verworfen");
+            gens.clearPending();
+            index.save();
+            return;
+        }
+        index.save();
+        stateStore.writeState(instanceDir, g.packId(), g.packVersion(),
+                stateStore.readAppliedOverridesSha256(instanceDir).orElse(null));
+    }
 
-            // Schritt 3: overrides.zip (configs usw.)
-            if (manifest.overrides() != null && manifest.overrides().url() != null && !manifest.overrides().url().isBlank()) {
-                done++;
-                progress.accept(done, total);
+    /**
+     * Schaltet auf die vorherige Generation zurück. Kein Download: die Dateien liegen noch
+     * im Generationsordner und werden nur nach game/ kopiert. Overrides/Configs bleiben wie sie sind.
+     */
+    public void rollback(ProfileStore.Profile profile, ProfileStore profileStore, Consumer<String> log) throws Exception {
+        Path instanceDir = profileStore.instanceDir(profile.name());
+        Path installDir = profileStore.instanceGameDir(profile.name());
+        Files.createDirectories(instanceDir.resolve(".state"));
 
-                Overrides o = manifest.overrides();
-                if (o.sha256() == null || o.sha256().isBlank()) {
-                    throw new IllegalArgumentException("overrides.sha256 fehlt");
-                }
+        Path lockFile = instanceDir.resolve(".state/install.lock");
+        try (FileChannel ch = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             var ignored = ch.lock()) {
 
-                log.accept("Overrides downloaden: " + o.url());
-                Path tmpZip = instanceDir.resolve("downloads").resolve("overrides-" + System.nanoTime() + ".zip");
-                http.downloadToFile(o.url(), tmpZip);
+            PackGenerations gens = new PackGenerations(instanceDir);
+            FileIndex index = FileIndex.load(installDir, instanceDir.resolve(".state/file-index.json"));
+            recoverPending(gens, instanceDir, installDir, index, log);
 
-                String got = FileUtil.sha256(tmpZip);
-                if (!got.equalsIgnoreCase(o.sha256())) {
-                    Files.deleteIfExists(tmpZip);
-                    throw new IOException("Overrides hash mismatch expected=" + o.sha256() + " got=" + got);
-                }
+            PackGenerations.Generation prev = gens.previous()
+                    .orElseThrow(() -> new IllegalStateException("Keine ältere Pack-Version zum Zurücksetzen vorhanden."));
 
-                log.accept("Overrides entpacken...");
-                FileUtil.unzipSafe(tmpZip, installDir);
-                Files.deleteIfExists(tmpZip);
-                log.accept("Overrides angewendet.");
-            }
+            log.accept("Rollback auf packVersion " + prev.packVersion() + " (" + prev.id() + ")");
+            gens.activate(prev, installDir, index, log);
+            index.save();
+            ManagedLedger.load(instanceDir).save(prev.packVersion(),
+                    ManagedLedger.of(prev.files(), stateStore.readOverridesIndex(instanceDir)));
 
-            // Schritt 4: State schreiben
-            stateStore.writeState(instanceDir, manifest.packId(), manifest.packVersion());
-            log.accept("State geschrieben: packVersion=" + manifest.packVersion());
+            stateStore.writeState(instanceDir, prev.packId(), prev.packVersion(),
+                    stateStore.readAppliedOverridesSha256(instanceDir).orElse(null));
+            log.accept("State geschrieben: packVersion=" + prev.packVersion());
         }
     }
 
-    private Manifest fetchManifest(String url) throws IOException, InterruptedException {
-        String json = http.getText(url);
-        return om.readValue(json, Manifest.class);
+    /** Wartet auf alle Tasks; der erste Fehler bricht den Rest ab und wird unverpackt weitergeworfen. */
+    private static void awaitAll(List<Future<?>> futures) throws Exception {
+        try {
+            for (Future<?> fu : futures) fu.get();
+        } catch (ExecutionException e) {
+            for (Future<?> fu : futures) fu.cancel(true);
+            Throwable c = e.getCause();
+            if (c instanceof Exception ex) throw ex;
+            if (c instanceof Error err) throw err;
+            throw e;
+        } catch (InterruptedException e) {
+            for (Future<?> fu : futures) fu.cancel(true);
+            throw e;
+        }
     }
 
-    private boolean isClientSide(String side) {
-        if (side == null) return true; // default: nehmen wir mal als client/both
-        return side.equalsIgnoreCase("client") || side.equalsIgnoreCase("both");
+    private static int downloadThreads(ProfileStore.Profile profile) {
+        int n = profile.downloadThreads();
+        if (n <= 0) n = DEFAULT_DOWNLOAD_THREADS;
+        return Math.min(n, MAX_DOWNLOAD_THREADS);
     }
 
-    private void cleanupMods(Path installDir, List<ManifestFile> clientFiles, Consumer<String> log) throws IOException {
-    Path modsDir = installDir.resolve("mods");
-        if (!Files.isDirectory(modsDir)) return;
+    /**
+     * Manifest über den HTTP-Cache laden (ETag/Last-Modified + kurzer Memory-TTL).
+     */
+    public ManifestCache.Result fetchManifest(ProfileStore profileStore, String url, Consumer<String> log)
+            throws IOException, InterruptedException {
+        return manifestCache(profileStore).fetch(url, log);
+    }
 
-        // Nur erlaubte Dateien in mods/ (aus Manifest)
-        Set<Path> allowed = clientFiles.stream()
-                .map(f -> installDir.resolve(f.path()).normalize())
-                .collect(Collectors.toSet());
+    /**
+     * Nur der Kopf des Manifests (ohne files[]): manifest.head.json, die der ManifestBuilder neben manifest.json
+     * schreibt – bei großen Packs ein paar hundert Bytes statt der ganzen Dateiliste. Ohne Kopf auf dem Server
+     * (ältere Packs) das ganze manifest.json. Wird auch vom Play-Pfad genutzt, damit Update + Play nur einmal laden.
+     */
+    public ManifestCache.Result fetchManifestHead(ProfileStore profileStore, String url, Consumer<String> log)
+            throws IOException, InterruptedException {
+        String headUrl = ManifestDeltas.headUrl(url);
+        if (headUrl != null && !noHead.contains(headUrl)) {
+            try {
+                return fetchManifest(profileStore, headUrl, log);
+            } catch (HttpStatusException e) {
+                if (e.statusCode() != 404) throw e;
+                noHead.add(headUrl); // nicht bei jedem Update wieder fragen
+            }
+        }
+        return fetchManifest(profileStore, url, log);
+    }
 
-        try (var s = Files.list(modsDir)) {
-            for (Path p : s.toList()) {
-                if (Files.isRegularFile(p) && p.getFileName().toString().endsWith(".jar")) {
-                    if (!allowed.contains(p.normalize())) {
-                        Files.deleteIfExists(p);
-                        log.accept("Entfernt (nicht im Manifest): " + installDir.relativize(p));
-                    }
-                }
+    /**
+     * Delta-Plan von der installierten Version bis zur Version im Kopf – nur wenn der Server einen Kopf hat und
+     * die Instanz sauber auf der installierten Version steht (State, aktive Generation, Ledger).
+     * Unveränderte Dateien kommen beim Delta aus dem BlobStore; fehlt dort eine (oder ist verändert), lieber Full-Sync.
+     */
+    private Optional<ManifestDeltas.Plan> deltaPlan(String manifestUrl, Manifest head, boolean samePack, Optional<Integer> installed,
+                                                    Optional<PackGenerations.Generation> currentGen, ManagedLedger ledger,
+                                                    BlobStore blobs, Consumer<String> log) throws IOException, InterruptedException {
+        String headUrl = ManifestDeltas.headUrl(manifestUrl);
+        if (headUrl == null || noHead.contains(headUrl)) return Optional.empty();
+        if (!samePack || installed.isEmpty() || installed.get() >= head.packVersion() || !ledger.exists()) return Optional.empty();
+        PackGenerations.Generation cur = currentGen.orElse(null);
+        if (cur == null || !head.packId().equals(cur.packId()) || cur.packVersion() != installed.get()) return Optional.empty();
+
+        Optional<ManifestDeltas.Plan> plan = deltas.fetchPlan(manifestUrl, head.packId(), installed.get(), head.packVersion(), log);
+        if (plan.isEmpty()) return plan;
+        for (var e : cur.files().entrySet()) {
+            if (plan.get().changed().containsKey(e.getKey()) || plan.get().removed().contains(e.getKey())) continue;
+            if (!blobs.has(e.getValue())) {
+                log.accept("Delta: " + e.getKey() + " fehlt im Blob-Speicher -> Full-Sync");
+                return Optional.empty();
             }
         }
+        return plan;
+    }
+
+    /** Woher die Einträge kommen: ganze files[] (gestreamt) oder nur die geänderten aus der Delta-Kette. */
+    @FunctionalInterface
+    private interface FileSource {
+        void forEach(ManifestReader.FileVisitor visitor) throws IOException;
+    }
+
+    private static Manifest requirePackId(Manifest manifest) {
+        if (manifest.packId() == null || manifest.packId().isBlank()) {
+            throw new IllegalArgumentException("manifest.packId fehlt");
+        }
+        return manifest;
+    }
+
+    private synchronized ManifestCache manifestCache(ProfileStore profileStore) {
+        if (manifestCache == null) {
+            manifestCache = new ManifestCache(profileStore.baseDir().resolve("cache").resolve("manifests"), http, om);
+        }
+        return manifestCache;
+    }
+
+    private boolean isClientSide(String side) {
+        if (side == null) return true; // default: nehmen wir mal als client/both
+        return side.equalsIgnoreCase("client") || side.equalsIgnoreCase("both");
+    }
+
+    /**
+     * Erster Lauf ohne Ledger (Instanz von vor dem Ledger): alles, was wir nachweislich selbst hingelegt haben –
+     * aktive Generation, gehashte Pack-Dateien aus dem FileIndex und die overrides-Einträge.
+     * Unbekannte Dateien (z.B. selbst hinzugefügte Mods) sind nicht dabei und bleiben.
+     */
+    private Map<String, String> seedLedger(Optional<PackGenerations.Generation> currentGen,
+                                           Map<String, Long> overrideCrcs, FileIndex index) throws IOException {
+        Map<String, String> pack = new HashMap<>(index.hashes());
+        currentGen.ifPresent(g -> pack.putAll(g.files()));
+        return ManagedLedger.of(pack, overrideCrcs);
     }
 
 }
\ No newline at end of file
@@ -16,7 +16,9 @@ public class ProfileStore {
             String manifestUrl,
             String serverHost,
             int serverPort,
-            JoinMode joinMode
+            JoinMode joinMode,
+            int downloadThreads,  // 0 = Standard (siehe PackUpdater)
+            int downloadLimitKbps // 0 = unbegrenzt; gilt für alle Downloads, solange das Profil aktiv ist
     ) {}
 
     private final Path baseDir;
@@ -41,6 +43,8 @@ public class ProfileStore {
     public Path sharedAssetsDir() { return sharedRoot().resolve("assets"); }
     public Path sharedLibrariesDir() { return sharedRoot().resolve("libraries"); }
     public Path sharedVersionsDir() { return sharedRoot().resolve("versions"); }
+    /** Inhaltsadressierte Pack-Dateien (sha256), von allen Instanzen per Hardlink genutzt. */
+    public Path sharedBlobsDir() { return sharedRoot().resolve("blobs"); }
 
     // ---- Instance dirs (per profile) ----
     public Path instanceDir(String profileName) {
@@ -0,0 +1,85 @@
+package de.levingamer8.modlauncher.core;
+
+import java.io.IOException;
+import java.net.http.HttpHeaders;
+import java.nio.file.FileSystemException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Wiederholt vorübergehende Netzwerkfehler mit exponentiellem Backoff + Jitter.
+ * Retry-After vom Server hat Vorrang (bis MAX_RETRY_AFTER), gesperrte Hosts (Circuit Breaker)
+ * und Dateisystemfehler werden nicht wiederholt.
+ */
+public class RetryPolicy {
+
+    @FunctionalInterface
+    public interface Call<T> {
+        T run() throws IOException, InterruptedException;
+    }
+
+    public static final RetryPolicy DEFAULT = new RetryPolicy(4, Duration.ofMillis(500), Duration.ofSeconds(20));
+
+    /** Längeres Retry-After wird nicht abgewartet, sondern als Fehler durchgereicht. */
+    private static final Duration MAX_RETRY_AFTER = Duration.ofSeconds(60);
+
+    private final int maxAttempts;
+    private final Duration baseDelay;
+    private final Duration maxDelay;
+
+    public RetryPolicy(int maxAttempts, Duration baseDelay, Duration maxDelay) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseDelay = baseDelay;
+        this.maxDelay = maxDelay;
+    }
+
+    public <T> T execute(Call<T> call) throws IOException, InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return call.run();
+            } catch (IOException e) {
+                if (attempt >= maxAttempts || !isRetryable(e)) throw e;
+
+                Duration wait = delay(attempt, e);
+                if (wait == null) throw e;
+                Thread.sleep(wait.toMillis());
+            }
+        }
+    }
+
+    static boolean isRetryable(IOException e) {
+        if (CancellableTask.isCancellation(e)) return false; // abgebrochen, nicht kaputt
+        if (e instanceof CircuitBreaker.OpenException) return false;
+        if (e instanceof FileSystemException) return false; // Platte voll, keine Rechte, ...
+        if (e instanceof HttpStatusException hs) return hs.isTransient();
+        return true; // Connect/Reset/Timeout/GOAWAY usw.
+    }
+
+    /** Zufällig zwischen cap/2 und cap mit cap = base * 2^(attempt-1), gedeckelt. null = nicht warten, aufgeben. */
+    private Duration delay(int attempt, IOException e) {
+        if (e instanceof HttpStatusException hs && hs.retryAfter() != null) {
+            return hs.retryAfter().compareTo(MAX_RETRY_AFTER) > 0 ? null : hs.retryAfter();
+        }
+        long cap = Math.min(maxDelay.toMillis(), baseDelay.toMillis() << Math.min(attempt - 1, 20));
+        return Duration.ofMillis(ThreadLocalRandom.current().nextLong(cap / 2, cap + 1));
+    }
+
+    /** Retry-After: Sekunden oder HTTP-Datum. */
+    public static Duration parseRetryAfter(HttpHeaders headers) {
+        String v = headers.firstValue("Retry-After").orElse(null);
+        if (v == null || v.isBlank()) return null;
+        v = v.trim();
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(v)));
+        } catch (NumberFormatException ignored) {}
+        try {
+            ZonedDateTime at = ZonedDateTime.parse(v, DateTimeFormatter.RFC_1123_DATE_TIME);
+            long ms = at.toInstant().toEpochMilli() - System.currentTimeMillis();
+            return Duration.ofMillis(Math.max(0, ms));
+        } catch (Exception ignored) {
+            return null;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package de.levingamer8.modlauncher.core;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -7,6 +8,7 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 import java.io.IOException;
 import java.nio.file.*;
 import java.time.Instant;
+import java.util.Map;
 import java.util.Optional;
 
 public class StateStore {
@@ -23,7 +25,49 @@ public class StateStore {
         return Optional.empty();
     }
 
-    public void writeState(Path instanceDir, String packId, int packVersion) throws IOException {
+    public Optional<String> readInstalledPackId(Path instanceDir) {
+        Path state = instanceDir.resolve(".state/state.json");
+        if (!Files.exists(state)) return Optional.empty();
+        try {
+            var node = om.readTree(state.toFile());
+            if (node.hasNonNull("packId")) return Optional.of(node.get("packId").asText());
+        } catch (Exception ignored) {}
+        return Optional.empty();
+    }
+
+    /** sha256 der zuletzt vollständig angewendeten overrides.zip. */
+    public Optional<String> readAppliedOverridesSha256(Path instanceDir) {
+        Path state = instanceDir.resolve(".state/state.json");
+        if (!Files.exists(state)) return Optional.empty();
+        try {
+            var node = om.readTree(state.toFile());
+            if (node.hasNonNull("overridesSha256")) return Optional.of(node.get("overridesSha256").asText());
+        } catch (Exception ignored) {}
+        return Optional.empty();
+    }
+
+    /** CRC je overrides-Eintrag vom letzten Anwenden (Name -> CRC32). */
+    public Map<String, Long> readOverridesIndex(Path instanceDir) {
+        Path f = instanceDir.resolve(".state/overrides-index.json");
+        if (!Files.exists(f)) return Map.of();
+        try {
+            return om.readValue(f.toFile(), new TypeReference<Map<String, Long>>() {});
+        } catch (Exception e) {
+            return Map.of();
+        }
+    }
+
+    public void writeOverridesIndex(Path instanceDir, Map<String, Long> crcs) throws IOException {
+        Path dir = instanceDir.resolve(".state");
+        Files.createDirectories(dir);
+        writeAtomic(dir.resolve("overrides-index.json"), crcs);
+    }
+
+    /**
+     * Commit eines Updates: temp + rename, damit state.json nie halb geschrieben ist.
+     * Bis hierhin erledigte Schritte stehen im {@link UpdateJournal}.
+     */
+    public void writeState(Path instanceDir, String packId, int packVersion, String overridesSha256) throws IOException {
         Path dir = instanceDir.resolve(".state");
         Files.createDirectories(dir);
         Path state = dir.resolve("state.json");
@@ -31,8 +75,15 @@ public class StateStore {
         ObjectNode node = om.createObjectNode();
         node.put("packId", packId);
         node.put("installedPackVersion", packVersion);
+        if (overridesSha256 != null) node.put("overridesSha256", overridesSha256);
         node.put("installedAt", Instant.now().toString());
 
-        om.writeValue(state.toFile(), node);
+        writeAtomic(state, node);
+    }
+
+    private void writeAtomic(Path target, Object value) throws IOException {
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        om.writeValue(tmp.toFile(), value);
+        FileUtil.atomicReplace(tmp, target);
     }
 }
@@ -0,0 +1,173 @@
+package de.levingamer8.modlauncher.core;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Append-only Journal eines laufenden Updates (.state/update.journal), eine Zeile pro erledigtem Schritt:
+ *
+ * <pre>
+ * begin     packId  packVersion  stagingId
+ * staged    sha256  pfad
+ * overrides sha256
+ * </pre>
+ *
+ * Wird der Launcher mittendrin beendet, setzt das nächste Update derselben Version im selben Staging-Ordner
+ * fort: schon gestagte Dateien werden weder neu gehasht noch geprüft, bereits angewendete overrides nicht
+ * nochmal geladen. Nach dem State-Commit wird das Journal gelöscht.
+ *
+ * Jede Zeile wird sofort geflusht (übersteht einen Prozess-Kill); eine halb geschriebene letzte Zeile
+ * wird beim Lesen ignoriert.
+ */
+public class UpdateJournal implements AutoCloseable {
+
+    private static final String FILE = "update.journal";
+
+    private final Path file;
+    private final String stagingId;
+    private final Map<String, String> staged;
+    private final String overridesSha256;
+    private BufferedWriter out;
+
+    private UpdateJournal(Path file, String stagingId, Map<String, String> staged, String overridesSha256) {
+        this.file = file;
+        this.stagingId = stagingId;
+        this.staged = staged;
+        this.overridesSha256 = overridesSha256;
+    }
+
+    /**
+     * Liest ein vorhandenes Journal für genau diese Pack-Version; gehört es zu einer anderen
+     * (oder ist es unlesbar), wird es verworfen.
+     */
+    public static UpdateJournal open(Path instanceDir, String packId, int packVersion) throws IOException {
+        Path f = instanceDir.resolve(".state").resolve(FILE);
+        Map<String, String> staged = new ConcurrentHashMap<>();
+        String stagingId = null;
+        String overrides = null;
+
+        if (Files.exists(f)) {
+            List<String> lines = Files.readAllLines(f, StandardCharsets.UTF_8);
+            String[] head = lines.isEmpty() ? new String[0] : lines.getFirst().split("\t");
+            if (head.length == 4 && head[0].equals("begin") && head[1].equals(packId)
+                    && head[2].equals(String.valueOf(packVersion))) {
+                stagingId = head[3];
+                // letzte Zeile ohne \n = beim Schreiben abgerissen (z.B. Pfad abgeschnitten) -> nicht glauben
+                int end = lines.size() > 1 && endsWithoutNewline(f) ? lines.size() - 1 : lines.size();
+                for (String line : lines.subList(1, end)) {
+                    String[] p = line.split("\t", 3);
+                    if (p.length == 3 && p[0].equals("staged")) staged.put(p[2], p[1]);
+                    else if (p.length == 2 && p[0].equals("overrides")) overrides = p[1];
+                }
+            } else {
+                Files.delete(f);
+            }
+        }
+        return new UpdateJournal(f, stagingId, staged, overrides);
+    }
+
+    /** Staging-Ordner des unterbrochenen Laufs (falls es einen gab). */
+    public Optional<String> stagingId() {
+        return Optional.ofNullable(stagingId);
+    }
+
+    public int stagedCount() {
+        return staged.size();
+    }
+
+    /** Startet das Journal; bei Fortsetzung im selben Staging-Ordner wird nur angehängt. */
+    public synchronized void begin(String packId, int packVersion, String id) throws IOException {
+        if (!id.equals(stagingId)) {
+            staged.clear();
+            FileUtil.ensureParent(file);
+            out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            append("begin\t" + packId + "\t" + packVersion + "\t" + id);
+        } else {
+            // abgerissene letzte Zeile abschneiden: mit \n abgeschlossen würde sie beim nächsten Lesen gelten
+            dropTornLine(file);
+            out = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        }
+    }
+
+    public boolean isStaged(String path, String sha256) {
+        return sha256.equalsIgnoreCase(staged.get(path));
+    }
+
+    public void staged(String path, String sha256) throws IOException {
+        if (path.indexOf('\n') >= 0 || path.indexOf('\r') >= 0) return; // nicht journalbar, wird dann eben neu geprüft
+        String sha = sha256.toLowerCase(Locale.ROOT);
+        staged.put(path, sha);
+        append("staged\t" + sha + "\t" + path);
+    }
+
+    public boolean overridesApplied(String sha256) {
+        return sha256.equalsIgnoreCase(overridesSha256);
+    }
+
+    public void overrides(String sha256) throws IOException {
+        append("overrides\t" + sha256.toLowerCase(Locale.ROOT));
+    }
+
+    /** Update ist komplett (State geschrieben) -> Journal weg. */
+    public synchronized void commit() throws IOException {
+        close();
+        Files.deleteIfExists(file);
+    }
+
+    /** Liegengebliebenes Journal entfernen (z.B. wenn die Version schon installiert ist). */
+    public static void discard(Path instanceDir) throws IOException {
+        Files.deleteIfExists(instanceDir.resolve(".state").resolve(FILE));
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (out != null) {
+            out.close();
+            out = null;
+        }
+    }
+
+    private static boolean endsWithoutNewline(Path file) throws IOException {
+        try (var ch = Files.newByteChannel(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size == 0) return false;
+            ByteBuffer b = ByteBuffer.allocate(1);
+            ch.position(size - 1).read(b);
+            return b.get(0) != '\n';
+        }
+    }
+
+    /** Kürzt die Datei bis hinter das letzte \n (nichts zu tun, wenn sie mit \n endet). */
+    private static void dropTornLine(Path file) throws IOException {
+        try (var ch = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long pos = ch.size();
+            ByteBuffer b = ByteBuffer.allocate(1);
+            while (pos > 0) {
+                b.clear();
+                ch.read(b, pos - 1);
+                if (b.get(0) == '\n') break;
+                pos--;
+            }
+            if (pos < ch.size()) ch.truncate(pos);
+        }
+    }
+
+    private synchronized void append(String line) throws IOException {
+        if (out == null) throw new IllegalStateException("Journal nicht begonnen");
+        out.write(line);
+        out.write('\n');
+        out.flush();
+    }
+}
@@ -40,6 +40,27 @@ public final class ManifestBuilder {
             Path outManifest,
             boolean createOverrides
     ) throws Exception {
+        buildManifest(packId, packName, packVersion, mcVersion, loaderType, loaderVer,
+                baseUrl, List.of(), packRoot, outManifest, createOverrides);
+    }
+
+    /**
+     * Wie oben, zusätzlich mit Mirrors: jede Datei liegt auch unter mirrorBase + "files/" + rel
+     * (gleiche Struktur wie baseUrl). Der Client sucht sich den schnellsten aus.
+     */
+    public static void buildManifest(
+            String packId,
+            String packName,
+            int packVersion,
+            String mcVersion,
+            String loaderType,
+            String loaderVer,
+            String baseUrl,
+            List<String> mirrorBaseUrls,
+            Path packRoot,
+            Path outManifest,
+            boolean createOverrides
+    ) throws Exception {
 
         Objects.requireNonNull(packId);
         Objects.requireNonNull(packName);
@@ -80,9 +101,11 @@ public final class ManifestBuilder {
             Path rel = packRoot.relativize(f);
             String relUnix = rel.toString().replace("\\", "/");
 
-            // manifest + overrides nicht als normale Dateien listen
-            if (relUnix.equals("manifest.json")) continue;
+            // manifest (+ Kopf) + overrides + deltas nicht als normale Dateien listen
+            if (relUnix.equals("manifest.json") || relUnix.equals("manifest.json.gz")) continue;
+            if (relUnix.equals("manifest.head.json")) continue;
             if (relUnix.equals("overrides.zip")) continue;
+            if (relUnix.startsWith("deltas/")) continue;
 
             boolean isMod = relUnix.startsWith("mods/");
             if (createOverrides && !isMod) {
@@ -102,6 +125,13 @@ public final class ManifestBuilder {
             dl.addProperty("type", "url");
             // Host-Regel: alle listed files liegen unter baseUrl + "files/" + rel
             dl.addProperty("url", baseUrl + "files/" + relUnix);
+            if (mirrorBaseUrls != null && !mirrorBaseUrls.isEmpty()) {
+                JsonArray mirrors = new JsonArray();
+                for (String m : mirrorBaseUrls) {
+                    mirrors.add((m.endsWith("/") ? m : m + "/") + "files/" + relUnix);
+                }
+                dl.add("mirrors", mirrors);
+            }
 
             entry.add("download", dl);
             filesArr.add(entry);
@@ -131,7 +161,21 @@ public final class ManifestBuilder {
 
         // 5) Schreiben (pretty)
         Gson gson = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
-        Files.writeString(outManifest, gson.toJson(root), StandardCharsets.UTF_8);
+
+        // 5a) Delta zur vorherigen Version (deltas/<alteVersion>.json), bevor manifest.json überschrieben wird
+        writeDelta(gson, outManifest, packId, packVersion, filesArr);
+
+        String json = gson.toJson(root);
+        Files.writeString(outManifest, json, StandardCharsets.UTF_8);
+        // früher gebaute manifest.json.gz weg: würde sonst veralten (und gzip_static liefert sie statt der .json aus).
+        // Komprimieren übernimmt der Webserver per Accept-Encoding.
+        Files.deleteIfExists(outManifest.resolveSibling(outManifest.getFileName() + ".gz"));
+
+        // 5b) Kopf ohne files[] (manifest.head.json) – zuletzt, damit er nie auf eine Version zeigt,
+        //     für die es noch kein Delta/Manifest gibt
+        JsonObject head = root.deepCopy();
+        head.remove("files");
+        Files.writeString(headPath(outManifest), gson.toJson(head), StandardCharsets.UTF_8);
 
         // 6) Optional: Info ausgeben (Host kann das loggen)
         System.out.println("[MANIFEST] geschrieben: " + outManifest.toAbsolutePath());
@@ -140,6 +184,97 @@ public final class ManifestBuilder {
 
     // ---------- helpers ----------
 
+    /**
+     * Kopf neben dem Manifest: manifest.json -> manifest.head.json. Clients, die schon eine Version
+     * installiert haben, laden nur den und die Deltas statt der ganzen files[].
+     * Manifest nur über den Builder veröffentlichen – von Hand geändert, passen Kopf und Deltas nicht mehr.
+     */
+    private static Path headPath(Path outManifest) {
+        String name = outManifest.getFileName().toString();
+        String base = name.endsWith(".json") ? name.substring(0, name.length() - ".json".length()) : name;
+        return outManifest.resolveSibling(base + ".head.json");
+    }
+
+    /**
+     * Vergleicht die neue files[] mit der bisherigen manifest.json und schreibt
+     * deltas/<alteVersion>.json (added/changed + removed). Clients auf der alten Version
+     * holen dann nur diese Liste statt der ganzen files[].
+     * Gleiche packVersion mit geändertem Inhalt: Deltas auf diese Version werden gelöscht,
+     * damit Clients sauber per Full-Sync aufholen.
+     */
+    private static void writeDelta(Gson gson, Path outManifest, String packId, int packVersion, JsonArray newFiles) throws Exception {
+        if (!Files.exists(outManifest)) return;
+
+        JsonObject prev;
+        try {
+            prev = JsonParser.parseString(Files.readString(outManifest, StandardCharsets.UTF_8)).getAsJsonObject();
+        } catch (Exception e) {
+            System.out.println("[MANIFEST] alte manifest.json nicht lesbar, kein Delta: " + e.getMessage());
+            return;
+        }
+        if (!prev.has("packVersion") || !prev.has("files")) return;
+        if (prev.has("packId") && !packId.equals(prev.get("packId").getAsString())) return;
+
+        int prevVersion = prev.get("packVersion").getAsInt();
+
+        Map<String, String> oldSha = new HashMap<>();
+        for (JsonElement e : prev.getAsJsonArray("files")) {
+            JsonObject o = e.getAsJsonObject();
+            oldSha.put(o.get("path").getAsString(), o.get("sha256").getAsString());
+        }
+
+        JsonArray changed = new JsonArray();
+        Set<String> newPaths = new HashSet<>();
+        for (JsonElement e : newFiles) {
+            JsonObject o = e.getAsJsonObject();
+            String path = o.get("path").getAsString();
+            newPaths.add(path);
+            String before = oldSha.get(path);
+            if (before == null || !before.equalsIgnoreCase(o.get("sha256").getAsString())) changed.add(o);
+        }
+
+        JsonArray removed = new JsonArray();
+        for (String path : oldSha.keySet()) {
+            if (!newPaths.contains(path)) removed.add(path);
+        }
+
+        Path deltasDir = outManifest.resolveSibling("deltas");
+
+        if (prevVersion == packVersion) {
+            if (!changed.isEmpty() || !removed.isEmpty()) {
+                System.out.println("[MANIFEST] WARN: Inhalt geändert ohne packVersion hochzuzählen -> Deltas auf " + packVersion + " verworfen");
+                dropDeltasTo(deltasDir, packVersion);
+            }
+            return;
+        }
+        if (prevVersion > packVersion) return;
+
+        JsonObject delta = new JsonObject();
+        delta.addProperty("packId", packId);
+        delta.addProperty("fromVersion", prevVersion);
+        delta.addProperty("toVersion", packVersion);
+        delta.add("files", changed);
+        delta.add("removed", removed);
+
+        Files.createDirectories(deltasDir);
+        Path out = deltasDir.resolve(prevVersion + ".json");
+        Files.writeString(out, gson.toJson(delta), StandardCharsets.UTF_8);
+        System.out.println("[MANIFEST] delta " + prevVersion + " -> " + packVersion
+                + ": " + changed.size() + " geändert, " + removed.size() + " entfernt");
+    }
+
+    private static void dropDeltasTo(Path deltasDir, int version) throws IOException {
+        if (!Files.isDirectory(deltasDir)) return;
+        try (var s = Files.list(deltasDir)) {
+            for (Path p : s.toList()) {
+                try {
+                    JsonObject d = JsonParser.parseString(Files.readString(p, StandardCharsets.UTF_8)).getAsJsonObject();
+                    if (d.has("toVersion") && d.get("toVersion").getAsInt() == version) Files.delete(p);
+                } catch (Exception ignored) {}
+            }
+        }
+    }
+
     private static void createOverridesZip(Path packRoot, Path outZip) throws Exception {
         // Alles außer mods/ ins overrides.zip
         if (Files.exists(outZip)) Files.delete(outZip);
@@ -150,8 +285,10 @@ public final class ManifestBuilder {
                     try {
                         Path rel = packRoot.relativize(p);
                         String relUnix = rel.toString().replace("\\", "/");
-                        if (relUnix.equals("manifest.json")) return;
+                        if (relUnix.equals("manifest.json") || relUnix.equals("manifest.json.gz")) return;
+                        if (relUnix.equals("manifest.head.json")) return;
                         if (relUnix.equals("overrides.zip")) return;
+                        if (relUnix.startsWith("deltas/")) return;
 
                         // alles außer mods/
                         if (relUnix.startsWith("mods/")) return;
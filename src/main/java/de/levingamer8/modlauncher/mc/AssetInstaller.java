@@ -0,0 +1,198 @@
+package de.levingamer8.modlauncher.mc;
+
+import com.google.gson.*;
+import de.levingamer8.modlauncher.core.DownloadProgress;
+import de.levingamer8.modlauncher.core.FileUtil;
+import de.levingamer8.modlauncher.core.HttpClientEx;
+import de.levingamer8.modlauncher.core.HttpTransport;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Lädt die Asset-Objekte (Sounds, Sprachen, ...) aus einem Asset-Index nach assets/objects.
+ *
+ * Welche Objekte schon per SHA-1 geprüft sind, steht in einem Bitmap pro Index
+ * (assets/verified/<name>.json, Bit i = i-tes Objekt nach Hash sortiert). Gesetzte Bits kosten beim
+ * nächsten Start nur ein stat (Größe), d.h. ein warmer Check über ~4000 Objekte hasht nichts.
+ * Ändert sich der Index (anderer sha1), wird das Bitmap verworfen.
+ *
+ * Fehlende/kaputte Objekte kommen parallel von resources.download.minecraft.net.
+ */
+final class AssetInstaller {
+
+    static final String RESOURCES_URL = "https://resources.download.minecraft.net/";
+
+    /** Alles vom selben Host -> mehr Threads als Host-Slots bringen nichts. */
+    private static final int DOWNLOAD_THREADS = HttpTransport.DEFAULT_MAX_PER_HOST;
+
+    private record AssetObject(String hash, long size) {}
+
+    private final HttpClientEx http = new HttpClientEx();
+
+    /** Prüft/lädt alle Objekte aus indexFile. Fortschritt geht an die am Thread gebundene Phase. */
+    void ensureAssets(Path sharedRoot, Path indexFile, Consumer<String> log) throws Exception {
+        Path assetsDir = sharedRoot.resolve("assets");
+        byte[] raw = Files.readAllBytes(indexFile);
+        String indexSha1 = HexFormat.of().formatHex(FileUtil.newDigest("SHA-1").digest(raw));
+        List<AssetObject> objects = readObjects(raw);
+
+        String name = indexFile.getFileName().toString().replaceFirst("\\.json$", "");
+        Path bitmapFile = assetsDir.resolve("verified").resolve(name + ".json");
+        BitSet verified = readBitmap(bitmapFile, indexSha1, objects.size());
+        int verifiedBefore = verified.cardinality();
+
+        // warmer Pfad: gesetzte Bits nur per stat bestätigen
+        List<Integer> todo = new ArrayList<>();
+        long todoBytes = 0;
+        for (int i = 0; i < objects.size(); i++) {
+            AssetObject o = objects.get(i);
+            if (verified.get(i) && hasSize(objectPath(assetsDir, o), o.size())) continue;
+            verified.clear(i);
+            todo.add(i);
+            todoBytes += o.size();
+        }
+
+        if (todo.isEmpty()) {
+            if (verified.cardinality() != verifiedBefore) writeBitmap(bitmapFile, indexSha1, objects.size(), verified);
+            log.accept("[ASSETS] " + objects.size() + " Objekte ok");
+            return;
+        }
+
+        log.accept("[ASSETS] " + todo.size() + " von " + objects.size() + " Objekten prüfen/laden");
+        DownloadProgress.Phase phase = DownloadProgress.bound();
+        if (phase != null) phase.expect(todoBytes, todo.size());
+
+        try {
+            fetchAll(assetsDir, objects, todo, verified, phase);
+        } finally {
+            // auch bei Fehler/Abbruch: was schon geprüft ist, muss beim nächsten Mal nicht nochmal
+            writeBitmap(bitmapFile, indexSha1, objects.size(), verified);
+        }
+        log.accept("[ASSETS] ok");
+    }
+
+    private void fetchAll(Path assetsDir, List<AssetObject> objects, List<Integer> todo,
+                          BitSet verified, DownloadProgress.Phase phase) throws Exception {
+        int threads = Math.min(DOWNLOAD_THREADS, todo.size());
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "asset-download");
+            t.setDaemon(true);
+            return t;
+        });
+        List<Future<?>> futures = new ArrayList<>(todo.size());
+        try {
+            for (int i : todo) {
+                AssetObject o = objects.get(i);
+                futures.add(pool.submit(() -> {
+                    try (var b = phase == null ? null : phase.bind()) {
+                        boolean downloaded = ensureObject(assetsDir, o);
+                        synchronized (verified) {
+                            verified.set(i);
+                        }
+                        if (phase != null) phase.fileDone(downloaded ? 0 : o.size());
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> f : futures) f.get();
+        } catch (ExecutionException e) {
+            for (Future<?> f : futures) f.cancel(true);
+            Throwable c = e.getCause();
+            if (c instanceof Exception ex) throw ex;
+            if (c instanceof Error err) throw err;
+            throw e;
+        } catch (InterruptedException e) {
+            for (Future<?> f : futures) f.cancel(true);
+            throw e;
+        } finally {
+            pool.shutdownNow();
+            boolean interrupted = Thread.interrupted();
+            try {
+                pool.awaitTermination(30, TimeUnit.SECONDS);
+            } finally {
+                if (interrupted) Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /** true = musste geladen werden; false = lag schon korrekt da (z.B. von einer alten Installation). */
+    private boolean ensureObject(Path assetsDir, AssetObject o) throws Exception {
+        Path out = objectPath(assetsDir, o);
+        if (hasSize(out, o.size()) && o.hash().equals(FileUtil.sha1(out))) return false;
+
+        String rel = o.hash().substring(0, 2) + "/" + o.hash();
+        http.downloadVerified(RESOURCES_URL + rel, out, "SHA-1", o.hash());
+        if (Files.size(out) != o.size()) {
+            throw new IOException("Asset hat falsche Größe: " + rel + " (erwartet " + o.size() + ", ist " + Files.size(out) + ")");
+        }
+        return true;
+    }
+
+    /** Objekte nach Hash sortiert und ohne Duplikate (mehrere Namen können auf denselben Hash zeigen). */
+    private static List<AssetObject> readObjects(byte[] indexJson) {
+        JsonObject root = JsonParser.parseString(new String(indexJson, StandardCharsets.UTF_8)).getAsJsonObject();
+        JsonObject objs = root.getAsJsonObject("objects");
+        if (objs == null) throw new IllegalStateException("Asset index ohne objects");
+
+        TreeMap<String, Long> byHash = new TreeMap<>();
+        for (Map.Entry<String, JsonElement> e : objs.entrySet()) {
+            JsonObject o = e.getValue().getAsJsonObject();
+            String hash = o.get("hash").getAsString().toLowerCase(Locale.ROOT);
+            if (!hash.matches("[0-9a-f]{40}")) throw new IllegalStateException("Ungültiger Asset-Hash: " + e.getKey());
+            byHash.put(hash, o.get("size").getAsLong());
+        }
+
+        List<AssetObject> out = new ArrayList<>(byHash.size());
+        byHash.forEach((h, s) -> out.add(new AssetObject(h, s)));
+        return out;
+    }
+
+    private static Path objectPath(Path assetsDir, AssetObject o) {
+        return assetsDir.resolve("objects").resolve(o.hash().substring(0, 2)).resolve(o.hash());
+    }
+
+    private static boolean hasSize(Path p, long size) {
+        try {
+            BasicFileAttributes a = Files.readAttributes(p, BasicFileAttributes.class);
+            return a.isRegularFile() && a.size() == size;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static BitSet readBitmap(Path file, String indexSha1, int count) {
+        if (!Files.exists(file)) return new BitSet(count);
+        try {
+            JsonObject o = JsonParser.parseString(Files.readString(file, StandardCharsets.UTF_8)).getAsJsonObject();
+            if (!indexSha1.equals(o.get("index").getAsString()) || o.get("count").getAsInt() != count) {
+                return new BitSet(count); // anderer Index -> Positionen passen nicht mehr
+            }
+            return BitSet.valueOf(Base64.getDecoder().decode(o.get("bits").getAsString()));
+        } catch (Exception e) {
+            return new BitSet(count);
+        }
+    }
+
+    private static void writeBitmap(Path file, String indexSha1, int count, BitSet bits) throws IOException {
+        JsonObject o = new JsonObject();
+        o.addProperty("index", indexSha1);
+        o.addProperty("count", count);
+        synchronized (bits) {
+            o.addProperty("bits", Base64.getEncoder().encodeToString(bits.toByteArray()));
+        }
+        FileUtil.ensureParent(file);
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.writeString(tmp, o.toString(), StandardCharsets.UTF_8);
+        FileUtil.atomicReplace(tmp, file);
+    }
+}
@@ -1,13 +1,12 @@
 package de.levingamer8.modlauncher.mc;
 
 import com.google.gson.*;
+import de.levingamer8.modlauncher.core.HttpTransport;
 import java.io.*;
-import java.net.URI;
 import java.net.URLEncoder;
 import java.net.http.*;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
-import java.time.Duration;
 import java.util.*;
 import java.util.function.Consumer;
 import java.util.jar.JarEntry;
@@ -19,10 +18,7 @@ public final class FabricApiAutoInstaller {
     private static final String MODRINTH_API = "https://api.modrinth.com/v2";
     private static final String MODRINTH_UA = "modlauncher/1.0 (fabric-api-auto)";
 
-    private final HttpClient http = HttpClient.newBuilder()
-            .followRedirects(HttpClient.Redirect.ALWAYS)
-            .connectTimeout(Duration.ofSeconds(20))
-            .build();
+    private final HttpTransport http = HttpTransport.shared();
 
     private final Gson gson = new Gson();
 
@@ -104,12 +100,11 @@ public final class FabricApiAutoInstaller {
                 + "?loaders=" + urlEncJsonArray("fabric")
                 + "&game_versions=" + urlEncJsonArray(mcVersion);
 
-        HttpRequest req = HttpRequest.newBuilder(URI.create(url))
-                .timeout(Duration.ofSeconds(30))
+        HttpRequest req = http.request(url)
                 .header("User-Agent", MODRINTH_UA)
-                .GET().build();
+                .build();
 
-        HttpResponse<String> resp = http.send(req, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> resp = http.sendText(req);
         if (resp.statusCode() != 200) throw new IOException("Modrinth HTTP " + resp.statusCode());
 
         JsonArray arr = JsonParser.parseString(resp.body()).getAsJsonArray();
@@ -154,13 +149,16 @@ public final class FabricApiAutoInstaller {
         Files.createDirectories(out.getParent());
         Path tmp = out.resolveSibling(out.getFileName().toString() + ".part");
 
-        HttpRequest req = HttpRequest.newBuilder(URI.create(url))
-                .timeout(Duration.ofMinutes(10))
+        HttpRequest req = http.request(url)
+                .timeout(HttpTransport.DOWNLOAD_TIMEOUT)
                 .header("User-Agent", MODRINTH_UA)
-                .GET().build();
+                .build();
 
         HttpResponse<InputStream> resp = http.send(req, HttpResponse.BodyHandlers.ofInputStream());
-        if (resp.statusCode() != 200) throw new IOException("Download HTTP " + resp.statusCode() + ": " + url);
+        if (resp.statusCode() != 200) {
+            resp.body().close();
+            throw new IOException("Download HTTP " + resp.statusCode() + ": " + url);
+        }
 
         try (InputStream in = resp.body()) {
             Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
@@ -1,9 +1,9 @@
 package de.levingamer8.modlauncher.mc;
 
 import com.google.gson.*;
+import de.levingamer8.modlauncher.core.HttpTransport;
 
 import java.io.IOException;
-import java.net.URI;
 import java.net.URLEncoder;
 import java.net.http.*;
 import java.nio.charset.StandardCharsets;
@@ -12,31 +12,27 @@ import java.time.Duration;
 
 public final class FabricInstaller {
 
-    private final HttpClient http = HttpClient.newBuilder()
-            .followRedirects(HttpClient.Redirect.ALWAYS)
-            .connectTimeout(Duration.ofSeconds(20))
-            .build();
+    private final HttpTransport http = HttpTransport.shared();
 
     private final Gson gson = new Gson();
 
     public record LatestFabric(String loaderVersion) {}
 
+    /** Loader-Releases kommen selten; ein paar Stunden alter "latest" ist egal. */
+    private static final Duration LOADER_LIST_TTL = Duration.ofHours(6);
+
     /**
      * Holt den neuesten stabilen Fabric Loader für eine MC-Version.
-     * Quelle: meta.fabricmc.net
+     * Quelle: meta.fabricmc.net, über den Metadaten-Cache (Play wartet nicht aufs Netz, sobald einmal geladen).
      */
-    public LatestFabric fetchLatestLoaderForMc(String mcVersion) throws Exception {
+    public LatestFabric fetchLatestLoaderForMc(Path sharedRoot, String mcVersion) throws Exception {
         // v2/versions/loader/<mc> -> Liste mit loader+intermediary+launcherMeta
-        String url = "https://meta.fabricmc.net/v2/versions/loader/" + mcVersion;
-
-        HttpRequest req = HttpRequest.newBuilder(URI.create(url))
-                .timeout(Duration.ofSeconds(30))
-                .GET().build();
-
-        HttpResponse<String> resp = http.send(req, HttpResponse.BodyHandlers.ofString());
-        if (resp.statusCode() != 200) throw new IOException("Fabric meta HTTP " + resp.statusCode() + ": " + url);
+        String url = "https://meta.fabricmc.net/v2/versions/loader/" + enc(mcVersion);
 
-        JsonArray arr = JsonParser.parseString(resp.body()).getAsJsonArray();
+        // leere Liste im Cache (MC-Version war da noch zu neu) -> einmal frisch nachfragen
+        MetadataCache meta = MetadataCache.of(sharedRoot);
+        JsonArray arr = JsonParser.parseString(meta.get(url, LOADER_LIST_TTL)).getAsJsonArray();
+        if (arr.isEmpty()) arr = JsonParser.parseString(meta.revalidate(url)).getAsJsonArray();
         if (arr.isEmpty()) throw new IllegalStateException("Fabric meta: keine Loader-Versionen für " + mcVersion);
 
         // In der Praxis ist das erste Element die neueste.
@@ -69,8 +65,8 @@ public final class FabricInstaller {
         }
 
         String url = "https://meta.fabricmc.net/v2/versions/loader/" + enc(mcVersion) + "/" + enc(loaderVersion);
-        HttpRequest req = HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(30)).GET().build();
-        HttpResponse<String> resp = http.send(req, HttpResponse.BodyHandlers.ofString());
+        HttpRequest req = http.request(url).build();
+        HttpResponse<String> resp = http.sendText(req);
         if (resp.statusCode() != 200) throw new IOException("Fabric meta HTTP " + resp.statusCode());
 
         JsonObject root = JsonParser.parseString(resp.body()).getAsJsonObject();
@@ -1,11 +1,10 @@
 package de.levingamer8.modlauncher.mc;
 
 import com.google.gson.*;
+import de.levingamer8.modlauncher.core.HttpClientEx;
 import de.levingamer8.modlauncher.runtime.JavaRuntimeManager;
 
 import java.io.*;
-import java.net.URI;
-import java.net.http.*;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.util.ArrayList;
@@ -17,9 +16,7 @@ import java.util.zip.ZipFile;
 @Deprecated
 public class ForgeInstaller1122Plus {
     @Deprecated
-    private final HttpClient http = HttpClient.newBuilder()
-            .followRedirects(HttpClient.Redirect.ALWAYS)
-            .build();
+    private final HttpClientEx http = new HttpClientEx();
     @Deprecated
     private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
 
@@ -194,7 +191,7 @@ public class ForgeInstaller1122Plus {
                 if (!name.startsWith(wantedPrefix)) continue;
 
                 // URL bestimmen
-                String baseUrl = lib.has("url") ? lib.get("url").getAsString() : "https://maven.minecraftforge.net/";
+                String baseUrl = lib.has("url") ? lib.get("url").getAsString() : LibraryMirrors.FORGE_MAVEN;
                 if (!baseUrl.endsWith("/")) baseUrl += "/";
 
                 String rel = mavenPathFromCoord(name);
@@ -247,7 +244,7 @@ public class ForgeInstaller1122Plus {
 
             if (lib.has("url")) url = lib.get("url").getAsString();
             if (url == null || url.isBlank()) {
-                url = "https://maven.minecraftforge.net/";
+                url = LibraryMirrors.FORGE_MAVEN;
             }
             if (!url.endsWith("/")) url += "/";
 
@@ -290,7 +287,7 @@ public class ForgeInstaller1122Plus {
 
         Path log4jApi = ensureMavenJar(sharedRoot, "https://repo1.maven.org/maven2/", "org.apache.logging.log4j:log4j-api:2.20.0", log);
         Path log4jCore = ensureMavenJar(sharedRoot, "https://repo1.maven.org/maven2/", "org.apache.logging.log4j:log4j-core:2.20.0", log);
-        Path bootstrap = ensureMavenJar(sharedRoot, "https://maven.minecraftforge.net/", "cpw.mods:bootstraplauncher:1.1.2", log);
+        Path bootstrap = ensureMavenJar(sharedRoot, LibraryMirrors.FORGE_MAVEN, "cpw.mods:bootstraplauncher:1.1.2", log);
 
 
         // 2) Ensure ForgeWrapper jar (Prism build)
@@ -481,12 +478,16 @@ public class ForgeInstaller1122Plus {
 
     @Deprecated
     private void downloadFile(String url, Path out) throws Exception {
-        HttpRequest req = HttpRequest.newBuilder(URI.create(url)).GET().build();
-        HttpResponse<byte[]> resp = http.send(req, HttpResponse.BodyHandlers.ofByteArray());
-        if (resp.statusCode() < 200 || resp.statusCode() >= 300) {
-            throw new RuntimeException("Download fehlgeschlagen (" + resp.statusCode() + "): " + url);
+        downloadFile(url, out, null);
+    }
+
+    @Deprecated
+    private void downloadFile(String url, Path out, String sha1) throws Exception {
+        try {
+            http.downloadVerified(LibraryMirrors.forUrl(url, sha1), out, "SHA-1", sha1);
+        } catch (IOException e) {
+            throw new RuntimeException("Download fehlgeschlagen: " + url + " (" + e.getMessage() + ")", e);
         }
-        Files.write(out, resp.body());
     }
 
     @Deprecated
@@ -543,7 +544,7 @@ public class ForgeInstaller1122Plus {
             String name = lib.get("name").getAsString();
             if (!name.startsWith(prefix)) continue;
 
-            String baseUrl = lib.has("url") ? lib.get("url").getAsString() : "https://maven.minecraftforge.net/";
+            String baseUrl = lib.has("url") ? lib.get("url").getAsString() : LibraryMirrors.FORGE_MAVEN;
             if (!baseUrl.endsWith("/")) baseUrl += "/";
 
             String rel = mavenPathFromCoord(name);
@@ -644,7 +645,7 @@ public class ForgeInstaller1122Plus {
                 if (art.has("url")) {
                     String url = art.get("url").getAsString();
                     if (log != null && lib.has("name")) log.accept("[FORGEWRAPPER] Download dep: " + lib.get("name").getAsString() + " -> " + url);
-                    downloadFile(url, out);
+                    downloadFile(url, out, MojangDownloader.optSha1(art));
                     return;
                 }
             }
@@ -654,7 +655,7 @@ public class ForgeInstaller1122Plus {
         if (lib.has("name")) {
             String coord = lib.get("name").getAsString();
             String rel = mavenPathFromCoord(coord);
-            String baseUrl = lib.has("url") ? lib.get("url").getAsString() : "https://maven.minecraftforge.net/";
+            String baseUrl = lib.has("url") ? lib.get("url").getAsString() : LibraryMirrors.FORGE_MAVEN;
             if (!baseUrl.endsWith("/")) baseUrl += "/";
             String url = baseUrl + rel;
             if (log != null) log.accept("[FORGEWRAPPER] Download dep: " + coord + " -> " + url);
@@ -0,0 +1,41 @@
+package de.levingamer8.modlauncher.mc;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Mirror-Listen für Maven-Repos, die bei Libraries/Forge fest verdrahtet sind.
+ * Jede Gruppe liefert dieselben Pfade; der erste Eintrag ist das Original.
+ *
+ * Ausweich-Mirrors werden nur benutzt, wenn der erwartete Hash bekannt ist –
+ * ohne Prüfsumme laden wir nur vom Original.
+ */
+final class LibraryMirrors {
+
+    private LibraryMirrors() {}
+
+    static final String MOJANG_LIBRARIES = "https://libraries.minecraft.net/";
+    static final String FORGE_MAVEN = "https://maven.minecraftforge.net/";
+
+    private static final List<List<String>> GROUPS = List.of(
+            List.of(MOJANG_LIBRARIES, FORGE_MAVEN), // Forge-Maven proxied die Mojang-Libraries
+            List.of(FORGE_MAVEN, "https://files.minecraftforge.net/maven/") // alter Pfad, weiterhin erreichbar
+    );
+
+    /** url + gleicher Pfad auf allen Mirrors seiner Gruppe (ohne Hash nur url). */
+    static List<String> forUrl(String url, String expectedHash) {
+        if (url == null) return List.of();
+        if (expectedHash == null || expectedHash.isBlank()) return List.of(url);
+
+        LinkedHashSet<String> out = new LinkedHashSet<>();
+        out.add(url);
+        for (List<String> group : GROUPS) {
+            String origin = group.getFirst();
+            if (!url.startsWith(origin)) continue;
+            String rel = url.substring(origin.length());
+            for (String mirror : group) out.add(mirror + rel);
+        }
+        return new ArrayList<>(out);
+    }
+}
@@ -1,22 +1,31 @@
 package de.levingamer8.modlauncher.mc;
 
 import com.google.gson.*;
+import de.levingamer8.modlauncher.core.DownloadPriority;
+import de.levingamer8.modlauncher.core.DownloadProgress;
+import de.levingamer8.modlauncher.core.HttpClientEx;
+import de.levingamer8.modlauncher.core.HttpTransport;
 
 import java.io.*;
-import java.net.URI;
-import java.net.http.*;
 import java.nio.file.*;
-import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 
 public final class LibraryService {
 
-    private final HttpClient http = HttpClient.newBuilder()
-            .followRedirects(HttpClient.Redirect.ALWAYS)
-            .connectTimeout(Duration.ofSeconds(20))
-            .build();
+    /** Parallele Library-Downloads; mehr bringt nichts, der Transport lässt eh nur so viele pro Host zu. */
+    private static final int DOWNLOAD_THREADS = HttpTransport.DEFAULT_MAX_PER_HOST;
+
+    /** Eine Library-Datei: wohin, woher, erwarteter SHA-1 (null = unbekannt) und Größe (-1 = unbekannt). */
+    private record Artifact(Path path, String url, String sha1, long size) {}
+
+    private final HttpClientEx http = new HttpClientEx();
 
     private final MojangDownloader mojang = new MojangDownloader();
 
@@ -55,7 +64,8 @@ public final class LibraryService {
         if (!Files.exists(vJar)) throw new IllegalStateException("Vanilla Version JAR fehlt: " + vJar);
 
 
-        // libraries (artifact only)
+        // libraries (artifact only): erst alles planen (Reihenfolge = JSON), dann fehlende parallel laden
+        List<Artifact> planned = new ArrayList<>();
         JsonArray libs = versionJson.getAsJsonArray("libraries");
         if (libs != null) {
             for (JsonElement el : libs) {
@@ -74,9 +84,9 @@ public final class LibraryService {
                             || group.startsWith("cpw.mods")
                             || group.startsWith("de.oceanlabs.mcp")
                             || group.startsWith("net.minecraft")) {
-                        baseUrl = "https://maven.minecraftforge.net/";
+                        baseUrl = LibraryMirrors.FORGE_MAVEN;
                     } else {
-                        baseUrl = "https://libraries.minecraft.net/";
+                        baseUrl = LibraryMirrors.MOJANG_LIBRARIES;
                     }
                 }
 
@@ -84,11 +94,11 @@ public final class LibraryService {
 
 
 
-                // Artifact
-                Path outJar = resolveArtifactJar(sharedRoot, lib, baseUrl);
-                if (outJar != null) cp.add(outJar);
+                planned.add(artifactOf(sharedRoot, lib, baseUrl));
             }
         }
+        fetchMissing(sharedRoot, planned);
+        for (Artifact a : planned) cp.add(a.path());
 
         // vanilla jar LAST
         cp.add(vJar);
@@ -101,6 +111,8 @@ public final class LibraryService {
         JsonArray libs = versionJson.getAsJsonArray("libraries");
         if (libs == null) return nativesDir;
 
+        List<Artifact> jars = new ArrayList<>();
+        List<JsonObject> owners = new ArrayList<>();
         for (JsonElement el : libs) {
             JsonObject lib = el.getAsJsonObject();
             if (!allowedOnWindows(lib)) continue;
@@ -112,41 +124,40 @@ public final class LibraryService {
             if (!natives.has("windows")) continue;
             String classifierKey = natives.get("windows").getAsString(); // meistens "natives-windows"
 
-            String baseUrl = lib.has("url") ? lib.get("url").getAsString() : "https://libraries.minecraft.net/";
+            String baseUrl = lib.has("url") ? lib.get("url").getAsString() : LibraryMirrors.MOJANG_LIBRARIES;
             if (!baseUrl.endsWith("/")) baseUrl += "/";
 
 
-            Path nativesJar = resolveClassifierJar(sharedRoot, lib, baseUrl, classifierKey);
+            Artifact nativesJar = classifierOf(sharedRoot, lib, baseUrl, classifierKey);
             if (nativesJar == null) continue;
+            jars.add(nativesJar);
+            owners.add(lib);
+        }
 
-            extractJar(nativesJar, nativesDir, lib);
+        fetchMissing(sharedRoot, jars);
+        // Entpacken in JSON-Reihenfolge, damit bei gleichen Dateinamen wie bisher die spätere Library gewinnt
+        for (int i = 0; i < jars.size(); i++) {
+            extractJar(jars.get(i).path(), nativesDir, owners.get(i));
         }
 
         return nativesDir;
     }
 
-    private Path resolveArtifactJar(Path sharedRoot, JsonObject lib, String baseUrl) throws Exception {
+    private Artifact artifactOf(Path sharedRoot, JsonObject lib, String baseUrl) {
         if (lib.has("downloads") && lib.getAsJsonObject("downloads").has("artifact")) {
             JsonObject art = lib.getAsJsonObject("downloads").getAsJsonObject("artifact");
             String path = art.get("path").getAsString();
             String url = art.has("url") ? art.get("url").getAsString() : (baseUrl + path);
-
-            Path out = sharedRoot.resolve("libraries").resolve(path);
-            Files.createDirectories(out.getParent());
-            if (!Files.exists(out)) downloadTo(url, out);
-            return out;
+            return new Artifact(sharedRoot.resolve("libraries").resolve(path), url, MojangDownloader.optSha1(art), optSize(art));
         }
 
         // fallback: maven path
         String name = lib.get("name").getAsString();
         String rel = ForgeInstaller1122Plus.mavenPathFromCoord(name);
-        Path out = sharedRoot.resolve("libraries").resolve(rel);
-        Files.createDirectories(out.getParent());
-        if (!Files.exists(out)) downloadTo(baseUrl + rel, out);
-        return out;
+        return new Artifact(sharedRoot.resolve("libraries").resolve(rel), baseUrl + rel, null, -1);
     }
 
-    private Path resolveClassifierJar(Path sharedRoot, JsonObject lib, String baseUrl, String classifierKey) throws Exception {
+    private Artifact classifierOf(Path sharedRoot, JsonObject lib, String baseUrl, String classifierKey) {
         if (lib.has("downloads") && lib.getAsJsonObject("downloads").has("classifiers")) {
             JsonObject cls = lib.getAsJsonObject("downloads").getAsJsonObject("classifiers");
             if (!cls.has(classifierKey)) return null;
@@ -154,11 +165,7 @@ public final class LibraryService {
             JsonObject nat = cls.getAsJsonObject(classifierKey);
             String path = nat.get("path").getAsString();
             String url = nat.has("url") ? nat.get("url").getAsString() : (baseUrl + path);
-
-            Path out = sharedRoot.resolve("libraries").resolve(path);
-            Files.createDirectories(out.getParent());
-            if (!Files.exists(out)) downloadTo(url, out);
-            return out;
+            return new Artifact(sharedRoot.resolve("libraries").resolve(path), url, MojangDownloader.optSha1(nat), optSize(nat));
         }
 
         // fallback: maven coord + classifier
@@ -168,11 +175,87 @@ public final class LibraryService {
 
         String coordWithClassifier = p[0] + ":" + p[1] + ":" + p[2] + ":" + classifierKey;
         String rel = ForgeInstaller1122Plus.mavenPathFromCoord(coordWithClassifier);
+        return new Artifact(sharedRoot.resolve("libraries").resolve(rel), baseUrl + rel, null, -1);
+    }
+
+    private static long optSize(JsonObject o) {
+        return o.has("size") ? o.get("size").getAsLong() : -1;
+    }
+
+    /**
+     * Lädt alle fehlenden oder kaputten Artefakte, bis zu DOWNLOAD_THREADS gleichzeitig.
+     * "Vorhanden" heißt: Größe und SHA-1 passen – geprüft über den gemeinsamen Index, ein warmer Start
+     * macht also nur ein stat pro Library.
+     * Doppelte Pfade (gleiche Library in Parent + Loader) werden nur einmal geladen.
+     * Beim ersten Fehler werden die restlichen Downloads abgebrochen.
+     */
+    private void fetchMissing(Path sharedRoot, List<Artifact> artifacts) throws Exception {
+        VerifiedArtifacts verified = VerifiedArtifacts.of(sharedRoot);
+        Map<Path, Artifact> missing = new LinkedHashMap<>();
+        try {
+            for (Artifact a : artifacts) {
+                if (missing.containsKey(a.path())) continue;
+                if (!verified.isValid(a.path(), a.size(), a.sha1())) missing.put(a.path(), a);
+            }
+            if (missing.isEmpty()) return;
+            if (missing.size() == 1) {
+                download(verified, missing.values().iterator().next());
+                return;
+            }
+            downloadAll(verified, missing.values());
+        } finally {
+            verified.save();
+        }
+    }
 
-        Path out = sharedRoot.resolve("libraries").resolve(rel);
-        Files.createDirectories(out.getParent());
-        if (!Files.exists(out)) downloadTo(baseUrl + rel, out);
-        return out;
+    private void downloadAll(VerifiedArtifacts verified, Collection<Artifact> missing) throws Exception {
+        // Worker zählen in dieselbe Fortschritts-Phase wie der Aufrufer
+        DownloadProgress.Phase phase = DownloadProgress.bound();
+        int threads = Math.min(DOWNLOAD_THREADS, missing.size());
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "library-download");
+            t.setDaemon(true);
+            return t;
+        });
+        List<Future<?>> futures = new ArrayList<>(missing.size());
+        try {
+            for (Artifact a : missing) {
+                futures.add(pool.submit(() -> {
+                    try (var b = phase == null ? null : phase.bind()) {
+                        download(verified, a);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> f : futures) f.get();
+        } catch (ExecutionException e) {
+            for (Future<?> f : futures) f.cancel(true);
+            Throwable c = e.getCause();
+            if (c instanceof Exception ex) throw ex;
+            if (c instanceof Error err) throw err;
+            throw e;
+        } catch (InterruptedException e) {
+            for (Future<?> f : futures) f.cancel(true);
+            throw e;
+        } finally {
+            pool.shutdownNow();
+            boolean interrupted = Thread.interrupted();
+            try {
+                pool.awaitTermination(30, TimeUnit.SECONDS);
+            } finally {
+                if (interrupted) Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void download(VerifiedArtifacts verified, Artifact a) throws Exception {
+        Files.createDirectories(a.path().getParent());
+        downloadTo(a.url(), a.path(), a.sha1());
+        if (a.size() > 0 && Files.size(a.path()) != a.size()) {
+            throw new IOException("Größe passt nicht: " + a.path().getFileName()
+                    + " (erwartet " + a.size() + ", ist " + Files.size(a.path()) + ")");
+        }
+        verified.markVerified(a.path(), a.sha1());
     }
 
     private void extractJar(Path jar, Path outDir, JsonObject lib) throws Exception {
@@ -227,18 +310,12 @@ public final class LibraryService {
         return allowed;
     }
 
-    private void downloadTo(String url, Path out) throws Exception {
-        Path tmp = out.resolveSibling(out.getFileName().toString() + ".part");
-        HttpRequest req = HttpRequest.newBuilder(URI.create(url))
-                .timeout(Duration.ofMinutes(10))
-                .GET().build();
-
-        HttpResponse<InputStream> resp = http.send(req, HttpResponse.BodyHandlers.ofInputStream());
-        if (resp.statusCode() != 200) throw new IOException("Download HTTP " + resp.statusCode() + ": " + url);
-
-        try (InputStream in = resp.body()) {
-            Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+    private void downloadTo(String url, Path out, String sha1) throws Exception {
+        // ohne Libraries kein Start -> vor Mods/Assets
+        try (var prio = DownloadPriority.LAUNCH_CRITICAL.bind()) {
+            http.downloadVerified(LibraryMirrors.forUrl(url, sha1), out, "SHA-1", sha1);
+        } catch (IOException e) {
+            throw new IOException("Download fehlgeschlagen: " + url + " (" + e.getMessage() + ")", e);
         }
-        Files.move(tmp, out, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
     }
 }
@@ -0,0 +1,162 @@
+package de.levingamer8.modlauncher.mc;
+
+import com.google.gson.*;
+import de.levingamer8.modlauncher.core.DownloadPriority;
+import de.levingamer8.modlauncher.core.FileUtil;
+import de.levingamer8.modlauncher.core.HttpClientEx;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Cache für Metadaten, die sich selten ändern (Mojang version_manifest, Fabric-Loader-Listen).
+ *
+ * Auf Platte (sharedRoot/cache/meta/<hash(url)>.json + .meta.json) liegen Body, Abrufzeit und Validatoren.
+ * Innerhalb der TTL wird einfach der Cache genommen. Danach auch – aber im Hintergrund wird bedingt
+ * nachgeladen (304 -> nur Zeitstempel neu), damit Play nie auf Metadaten wartet.
+ * Nur wenn noch gar nichts im Cache liegt, wird synchron geladen.
+ */
+final class MetadataCache {
+
+    private static final Map<Path, MetadataCache> SHARED = new ConcurrentHashMap<>();
+
+    /** Ein Thread reicht, es geht um eine Handvoll kleiner JSONs. */
+    private static final ExecutorService REFRESH = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "meta-refresh");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private record Meta(long fetchedAtMillis, String etag, String lastModified) {}
+
+    private final Path dir;
+    private final HttpClientEx http = new HttpClientEx();
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    private MetadataCache(Path dir) {
+        this.dir = dir;
+    }
+
+    static MetadataCache of(Path sharedRoot) {
+        return SHARED.computeIfAbsent(sharedRoot.toAbsolutePath().normalize(),
+                root -> new MetadataCache(root.resolve("cache").resolve("meta")));
+    }
+
+    /** Body aus dem Cache; ist er älter als ttl, wird im Hintergrund aufgefrischt. */
+    String get(String url, Duration ttl) throws IOException, InterruptedException {
+        Path body = bodyFile(url);
+        Meta meta = readMeta(url);
+        if (meta == null || !Files.exists(body)) return fetch(url, null);
+
+        if (System.currentTimeMillis() - meta.fetchedAtMillis() >= ttl.toMillis()) {
+            refreshInBackground(url);
+        }
+        return Files.readString(body, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Sofort beim Server nachfragen (bedingt), z.B. wenn im gecachten Stand etwas fehlt.
+     * Ist der Server nicht erreichbar, gibt es den Cache-Stand (falls vorhanden).
+     */
+    String revalidate(String url) throws IOException, InterruptedException {
+        Meta meta = readMeta(url);
+        try {
+            return fetch(url, meta);
+        } catch (IOException e) {
+            Path body = bodyFile(url);
+            if (meta == null || !Files.exists(body)) throw e;
+            return Files.readString(body, StandardCharsets.UTF_8);
+        }
+    }
+
+    private void refreshInBackground(String url) {
+        if (!refreshing.add(url)) return;
+        REFRESH.execute(() -> {
+            // Nutzer-Downloads gehen vor
+            try (var prio = DownloadPriority.BACKGROUND.bind()) {
+                fetch(url, readMeta(url));
+            } catch (Exception ignored) {
+                // offline o.ä.: der alte Stand bleibt, nächster Start versucht es wieder
+            } finally {
+                refreshing.remove(url);
+            }
+        });
+    }
+
+    private String fetch(String url, Meta meta) throws IOException, InterruptedException {
+        Path body = bodyFile(url);
+        boolean haveBody = meta != null && Files.exists(body);
+
+        HttpClientEx.ConditionalText resp = http.getTextConditional(url,
+                haveBody ? meta.etag() : null,
+                haveBody ? meta.lastModified() : null);
+
+        if (resp.notModified() && haveBody) {
+            writeMeta(url, new Meta(System.currentTimeMillis(), meta.etag(), meta.lastModified()));
+            return Files.readString(body, StandardCharsets.UTF_8);
+        }
+
+        // nur gültiges JSON cachen
+        JsonParser.parseString(resp.body());
+        Files.createDirectories(dir);
+        write(body, resp.body());
+        writeMeta(url, new Meta(System.currentTimeMillis(), resp.etag(), resp.lastModified()));
+        return resp.body();
+    }
+
+    private Meta readMeta(String url) {
+        Path meta = metaFile(url);
+        if (!Files.exists(meta)) return null;
+        try {
+            JsonObject o = JsonParser.parseString(Files.readString(meta, StandardCharsets.UTF_8)).getAsJsonObject();
+            return new Meta(
+                    o.get("fetchedAt").getAsLong(),
+                    o.has("etag") ? o.get("etag").getAsString() : null,
+                    o.has("lastModified") ? o.get("lastModified").getAsString() : null);
+        } catch (Exception e) {
+            return null; // kaputt -> wie nicht gecacht
+        }
+    }
+
+    private void writeMeta(String url, Meta meta) throws IOException {
+        JsonObject o = new JsonObject();
+        o.addProperty("url", url);
+        o.addProperty("fetchedAt", meta.fetchedAtMillis());
+        if (meta.etag() != null) o.addProperty("etag", meta.etag());
+        if (meta.lastModified() != null) o.addProperty("lastModified", meta.lastModified());
+        write(metaFile(url), o.toString());
+    }
+
+    private Path bodyFile(String url) {
+        return dir.resolve(key(url) + ".json");
+    }
+
+    private Path metaFile(String url) {
+        return dir.resolve(key(url) + ".meta.json");
+    }
+
+    private static void write(Path target, String content) throws IOException {
+        // eigener tmp-Name: Hintergrund-Refresh und ein synchroner Abruf können sich überschneiden
+        Files.createDirectories(target.getParent());
+        Path tmp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            Files.writeString(tmp, content, StandardCharsets.UTF_8);
+            FileUtil.atomicReplace(tmp, target);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static String key(String url) {
+        byte[] h = FileUtil.newDigest("SHA-256").digest(url.getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(h, 0, 16);
+    }
+}
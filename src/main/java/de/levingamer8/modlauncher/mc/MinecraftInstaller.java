@@ -1,11 +1,5 @@
 package de.levingamer8.modlauncher.mc;
 
-import fr.flowarg.flowupdater.FlowUpdater;
-import fr.flowarg.flowupdater.download.IProgressCallback;
-import fr.flowarg.flowupdater.download.Step;
-import fr.flowarg.flowupdater.utils.UpdaterOptions;
-import fr.flowarg.flowupdater.versions.VanillaVersion;
-
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.function.Consumer;
@@ -14,34 +8,21 @@ public final class MinecraftInstaller {
 
     public record VanillaSpec(String mcVersion) {}
 
+    private final MojangDownloader mojang = new MojangDownloader();
+    private final AssetInstaller assets = new AssetInstaller();
+
     /**
-     * Installiert Vanilla-Basis (assets/libraries/versions) nach sharedRoot.
+     * Installiert Vanilla-Basis (Version-JSON, Asset-Index, Assets) nach sharedRoot.
      * Das ist die Grundlage für Vanilla, Fabric und Forge (inheritsFrom).
+     * Client-Jar und Libraries kommen aus MojangDownloader/LibraryService, geprüft per SHA-1.
      */
     public void ensureVanillaInstalled(Path sharedRoot, String mcVersion, Consumer<String> log) throws Exception {
         Files.createDirectories(sharedRoot);
 
         log.accept("[INSTALL] Vanilla prüfen/installieren: " + mcVersion);
-        VanillaVersion vanilla = new VanillaVersion.VanillaVersionBuilder()
-                .withName(mcVersion)
-                .build();
-
-        UpdaterOptions options = new UpdaterOptions.UpdaterOptionsBuilder().build();
-
-        IProgressCallback progress = new IProgressCallback() {
-            @Override public void step(Step step) { log.accept("[FlowUpdater] Step: " + step.name()); }
-            @Override public void update(fr.flowarg.flowupdater.download.DownloadList.DownloadInfo info) { /* weniger spam */ }
-        };
-
-        FlowUpdater updater = new FlowUpdater.FlowUpdaterBuilder()
-                .withVanillaVersion(vanilla)
-                .withUpdaterOptions(options)
-                .withModLoaderVersion(null)
-                .withProgressCallback(progress)
-                .build();
-
-        // gameDir von FlowUpdater = .minecraft root -> bei uns sharedRoot
-        updater.update(sharedRoot);
+        mojang.ensureVersionJson(sharedRoot, mcVersion);
+        Path assetIndex = mojang.ensureAssetIndex(sharedRoot, mcVersion);
+        assets.ensureAssets(sharedRoot, assetIndex, log);
         log.accept("[INSTALL] Vanilla ok.");
     }
 }
@@ -1,6 +1,9 @@
 package de.levingamer8.modlauncher.mc;
 
 import com.google.gson.JsonObject;
+import de.levingamer8.modlauncher.core.DownloadPriority;
+import de.levingamer8.modlauncher.core.DownloadProgress;
+import de.levingamer8.modlauncher.core.HttpClientEx;
 import de.levingamer8.modlauncher.core.LoaderType;
 import de.levingamer8.modlauncher.runtime.JavaRuntimeManager;
 
@@ -19,7 +22,7 @@ public final class MinecraftLauncherService {
     private static final String LAUNCHER_VERSION = "1.0";
 
     private final MojangDownloader mojang = new MojangDownloader();
-    private final MinecraftInstaller vanillaInstaller = new MinecraftInstaller(); // FlowUpdater wrapper
+    private final MinecraftInstaller vanillaInstaller = new MinecraftInstaller(); // Version-JSON + Assets
     private final FabricInstaller fabricInstaller = new FabricInstaller();
 
     // Forge
@@ -35,8 +38,20 @@ public final class MinecraftLauncherService {
                        LaunchSpec spec,
                        AuthSession auth,
                        Consumer<String> log) throws Exception {
+        // headless: Fortschritt landet alle paar Sekunden im Log
+        launch(sharedRoot, instanceGameDir, instanceRuntimeDir, spec, auth, log, DownloadProgress.logging(safeLog(log)));
+    }
+
+    public void launch(Path sharedRoot,
+                       Path instanceGameDir,
+                       Path instanceRuntimeDir,
+                       LaunchSpec spec,
+                       AuthSession auth,
+                       Consumer<String> log,
+                       DownloadProgress.Listener progress) throws Exception {
 
         final Consumer<String> L = safeLog(log);
+        final DownloadProgress dp = new DownloadProgress(progress);
 
         // --- dirs ---
         Files.createDirectories(sharedRoot);
@@ -47,60 +62,75 @@ public final class MinecraftLauncherService {
         Path nativesDir = instanceRuntimeDir.resolve("natives");
         Files.createDirectories(nativesDir);
 
-        // --- 1) Vanilla Basis (Assets/Index/Client/Libraries via FlowUpdater) ---
-        vanillaInstaller.ensureVanillaInstalled(sharedRoot, spec.mcVersion(), L);
-        mojang.ensureAssetIndex(sharedRoot, spec.mcVersion());
-
-        // optional: Root-Müll bereinigen (best-effort)
+        // optional: Reste alter Installationen (shared/<mc>.json, client.jar) einsortieren (best-effort)
         cleanupSharedRootArtifacts(sharedRoot, spec.mcVersion(), L);
 
+        // --- 1) Version JSON + Client Jar garantieren (Vanilla) ---
+        DownloadProgress.Phase mcPhase = dp.phase("Minecraft");
+        try (var b = mcPhase.bind(); var prio = DownloadPriority.LAUNCH_CRITICAL.bind()) {
+            mojang.ensureVersionJson(sharedRoot, spec.mcVersion());
+            mojang.ensureClientJar(sharedRoot, spec.mcVersion());
+        }
+        mcPhase.finish();
+
+        // --- 2) Vanilla Basis: Asset-Index + Assets (Libraries kommen in Schritt 5) ---
+        DownloadProgress.Phase assetPhase = dp.phase("Assets");
+        try (var b = assetPhase.bind()) {
+            vanillaInstaller.ensureVanillaInstalled(sharedRoot, spec.mcVersion(), L);
+        }
+        assetPhase.finish();
+
         Path assetIndex = sharedRoot.resolve("assets").resolve("indexes").resolve(spec.mcVersion() + ".json");
         if (!Files.exists(assetIndex)) {
             throw new IllegalStateException("Asset index fehlt nach Install: " + assetIndex);
         }
 
-
-        // --- 2) Version JSON + Client Jar garantieren (Vanilla) ---
-        mojang.ensureVersionJson(sharedRoot, spec.mcVersion());
-        mojang.ensureClientJar(sharedRoot, spec.mcVersion());
-
         // --- 3) Loader vorbereiten -> versionId bestimmen ---
         String versionId;
-        if (spec.loaderType() == LoaderType.VANILLA) {
-            versionId = spec.mcVersion();
-
-        } else if (spec.loaderType() == LoaderType.FABRIC) {
-            FabricInstaller.LatestFabric latest = fabricInstaller.fetchLatestLoaderForMc(spec.mcVersion());
-            String loaderVer = latest.loaderVersion();
-            L.accept("[FABRIC] Verwende latest Fabric Loader für " + spec.mcVersion() + ": " + loaderVer);
-
-            versionId = fabricInstaller.ensureFabricVersion(sharedRoot, spec.mcVersion(), loaderVer);
+        DownloadProgress.Phase loaderPhase = dp.phase("Loader");
+        try (var b = loaderPhase.bind(); var prio = DownloadPriority.LAUNCH_CRITICAL.bind()) {
+            if (spec.loaderType() == LoaderType.VANILLA) {
+                versionId = spec.mcVersion();
+
+            } else if (spec.loaderType() == LoaderType.FABRIC) {
+                FabricInstaller.LatestFabric latest = fabricInstaller.fetchLatestLoaderForMc(sharedRoot, spec.mcVersion());
+                String loaderVer = latest.loaderVersion();
+                L.accept("[FABRIC] Verwende latest Fabric Loader für " + spec.mcVersion() + ": " + loaderVer);
+
+                versionId = fabricInstaller.ensureFabricVersion(sharedRoot, spec.mcVersion(), loaderVer);
+
+            } else if (spec.loaderType() == LoaderType.FORGE) {
+                String mc = spec.mcVersion();
+                String forgeVer = spec.loaderVersion();
+                if (forgeVer == null || forgeVer.isBlank()) {
+                    throw new IllegalStateException("Forge loaderVersion fehlt im Manifest/LaunchSpec (z.B. 47.4.10).");
+                }
 
-        } else if (spec.loaderType() == LoaderType.FORGE) {
-            String mc = spec.mcVersion();
-            String forgeVer = spec.loaderVersion();
-            if (forgeVer == null || forgeVer.isBlank()) {
-                throw new IllegalStateException("Forge loaderVersion fehlt im Manifest/LaunchSpec (z.B. 47.4.10).");
-            }
+                if (isAtLeast13(mc)) {
+                    // Modern Forge (1.13+)
+                    versionId = modernForge.installForge(sharedRoot, mc, forgeVer, L);
+                } else {
+                    // Legacy Forge (z.B. 1.12.2)
+                    Path installerJar = downloadForgeInstallerJar(sharedRoot, mc, forgeVer, L);
+                    versionId = legacyForge.installForgeClient(sharedRoot, mc, forgeVer, installerJar, L);
+                }
 
-            if (isAtLeast13(mc)) {
-                // Modern Forge (1.13+)
-                versionId = modernForge.installForge(sharedRoot, mc, forgeVer, L);
             } else {
-                // Legacy Forge (z.B. 1.12.2)
-                Path installerJar = downloadForgeInstallerJar(sharedRoot, mc, forgeVer, L);
-                versionId = legacyForge.installForgeClient(sharedRoot, mc, forgeVer, installerJar, L);
+                throw new IllegalStateException("Unbekannter LoaderType: " + spec.loaderType());
             }
-
-        } else {
-            throw new IllegalStateException("Unbekannter LoaderType: " + spec.loaderType());
         }
+        loaderPhase.finish();
 
         // --- 4) merged version json (inheritsFrom auflösen) ---
         JsonObject v = resolver.resolveMergedVersionJson(sharedRoot, versionId);
 
         // --- 5) Classpath sicherstellen (Libraries + ggf. Version-Jar) ---
-        List<Path> cp = new ArrayList<>(libraryService.ensureClasspath(sharedRoot, v));
+        DownloadProgress.Phase libPhase = dp.phase("Libraries");
+        List<Path> cp;
+        try (var b = libPhase.bind()) {
+            cp = new ArrayList<>(libraryService.ensureClasspath(sharedRoot, v));
+        }
+        libPhase.finish();
 
         // Forge BootstrapLauncher: Game-JAR darf NICHT in -cp sein, sonst JPMS Konflikte
         if (spec.loaderType() == LoaderType.FORGE) {
@@ -160,7 +190,12 @@ public final class MinecraftLauncherService {
 
         // --- 8) MainClass + Java ---
         String mainClass = v.get("mainClass").getAsString();
-        Path javaExe = JavaRuntimeManager.ensureJava(spec.mcVersion(), L);
+        DownloadProgress.Phase javaPhase = dp.phase("Java");
+        Path javaExe;
+        try (var b = javaPhase.bind(); var prio = DownloadPriority.LAUNCH_CRITICAL.bind()) {
+            javaExe = JavaRuntimeManager.ensureJava(spec.mcVersion(), L);
+        }
+        javaPhase.finish();
 
         // --- 9) Cmd (WICHTIG: JVM-Args VOR mainClass, keine extra -cp Hacks!) ---
         List<String> cmd = new ArrayList<>();
@@ -279,32 +314,10 @@ public final class MinecraftLauncherService {
         Files.createDirectories(dir);
 
         String file = "forge-" + mcVersion + "-" + forgeVersion + "-installer.jar";
-        Path out = dir.resolve(file);
-
-        if (Files.exists(out) && Files.size(out) > 100_000) {
-            log.accept("[FORGE] Installer vorhanden: " + out);
-            return out;
-        }
-
-        String url = "https://maven.minecraftforge.net/net/minecraftforge/forge/"
+        String url = LibraryMirrors.FORGE_MAVEN + "net/minecraftforge/forge/"
                 + mcVersion + "-" + forgeVersion + "/"
                 + file;
-
-        log.accept("[FORGE] Download Installer: " + url);
-
-        var client = java.net.http.HttpClient.newBuilder()
-                .followRedirects(java.net.http.HttpClient.Redirect.ALWAYS)
-                .build();
-
-        var req = java.net.http.HttpRequest.newBuilder(java.net.URI.create(url)).GET().build();
-        var resp = client.send(req, java.net.http.HttpResponse.BodyHandlers.ofByteArray());
-
-        if (resp.statusCode() < 200 || resp.statusCode() >= 300) {
-            throw new RuntimeException("Forge installer download failed HTTP " + resp.statusCode() + ": " + url);
-        }
-
-        Files.write(out, resp.body(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
-        return out;
+        return ModernForgeInstaller.ensureInstallerJar(new HttpClientEx(), sharedRoot, dir.resolve(file), url, log);
     }
 
     private static void removeGameJarFromClasspath(List<Path> cp, Path sharedRoot, JsonObject merged, String versionId) {
@@ -4,15 +4,12 @@ import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import de.levingamer8.modlauncher.core.HttpClientEx;
 import de.levingamer8.modlauncher.runtime.JavaRuntimeManager;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.util.Comparator;
@@ -21,9 +18,7 @@ import java.util.stream.Stream;
 
 public final class ModernForgeInstaller {
 
-    private final HttpClient http = HttpClient.newBuilder()
-            .followRedirects(HttpClient.Redirect.ALWAYS)
-            .build();
+    private final HttpClientEx http = new HttpClientEx();
 
     private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
 
@@ -75,7 +70,7 @@ public final class ModernForgeInstaller {
         }
 
         // Forge Installer besorgen
-        Path installerJar = ensureForgeInstaller(sharedInstallers, mcVersion, forgeVersion, L);
+        Path installerJar = ensureForgeInstaller(sharedRoot, sharedInstallers, mcVersion, forgeVersion, L);
 
         // Fake environment
         Path tempRoot = sharedCache.resolve(mcVersion + "-" + forgeVersion);
@@ -149,34 +144,70 @@ public final class ModernForgeInstaller {
         return targetId;
     }
 
-    private Path ensureForgeInstaller(Path sharedInstallersForgeDir, String mcVersion, String forgeVersion, Consumer<String> log) throws Exception {
+    private Path ensureForgeInstaller(Path sharedRoot, Path sharedInstallersForgeDir, String mcVersion, String forgeVersion, Consumer<String> log) throws Exception {
         Path dir = sharedInstallersForgeDir.resolve(mcVersion + "-" + forgeVersion);
         Files.createDirectories(dir);
 
         String file = "forge-" + mcVersion + "-" + forgeVersion + "-installer.jar";
-        Path out = dir.resolve(file);
+        String url = LibraryMirrors.FORGE_MAVEN + "net/minecraftforge/forge/"
+                + mcVersion + "-" + forgeVersion + "/" + file;
+        return ensureInstallerJar(http, sharedRoot, dir.resolve(file), url, log);
+    }
 
-        if (Files.exists(out) && Files.size(out) > 100_000) {
+    /**
+     * Forge-Installer unter sharedRoot bereitstellen, geprüft gegen die Maven-Prüfsumme (url + ".sha1").
+     * Schon einmal geprüft und seitdem unverändert -> kein Netz nötig (siehe {@link VerifiedArtifacts}).
+     * Auch vom Legacy-Pfad (1.12.2) benutzt.
+     */
+    static Path ensureInstallerJar(HttpClientEx http, Path sharedRoot, Path out, String url, Consumer<String> log) throws Exception {
+        VerifiedArtifacts verified = VerifiedArtifacts.of(sharedRoot);
+        if (verified.isKnownGood(out)) {
             log.accept("[FORGE] Installer vorhanden: " + out);
             return out;
         }
 
-        String url = "https://maven.minecraftforge.net/net/minecraftforge/forge/"
-                + mcVersion + "-" + forgeVersion + "/" + file;
+        // Forge-Maven liefert <datei>.sha1 daneben -> vorhandene Datei prüfen bzw. beim Download gleich mitprüfen
+        String sha1 = fetchSha1OrNull(http, url);
+        try {
+            if (sha1 != null && verified.isValid(out, -1, sha1)) {
+                log.accept("[FORGE] Installer vorhanden: " + out);
+                return out;
+            }
+            // ohne Prüfsumme bleibt nur die Größe als Plausibilität
+            if (sha1 == null && Files.exists(out) && Files.size(out) > 100_000) {
+                log.accept("[FORGE] Installer vorhanden (ungeprüft): " + out);
+                return out;
+            }
 
-        log.accept("[FORGE] Download Installer: " + url);
+            log.accept("[FORGE] Download Installer: " + url);
+            try {
+                http.downloadVerified(LibraryMirrors.forUrl(url, sha1), out, "SHA-1", sha1);
+            } catch (IOException e) {
+                throw new IOException("Forge installer download failed: " + url + " (" + e.getMessage() + ")", e);
+            }
 
-        HttpRequest req = HttpRequest.newBuilder(URI.create(url)).GET().build();
-        HttpResponse<byte[]> resp = http.send(req, HttpResponse.BodyHandlers.ofByteArray());
-        if (resp.statusCode() < 200 || resp.statusCode() >= 300) {
-            throw new IOException("Forge installer download failed HTTP " + resp.statusCode() + ": " + url);
+            if (!Files.exists(out) || Files.size(out) < 100_000) {
+                throw new IOException("Forge installer jar kaputt/zu klein: " + out);
+            }
+            verified.markVerified(out, sha1);
+            return out;
+        } finally {
+            verified.save();
         }
-        Files.write(out, resp.body(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
 
-        if (!Files.exists(out) || Files.size(out) < 100_000) {
-            throw new IOException("Forge installer jar kaputt/zu klein: " + out);
+    /** Liest die Maven-Prüfsumme (url + ".sha1"); fehlt sie, wird ohne Prüfung geladen. */
+    static String fetchSha1OrNull(HttpClientEx http, String url) {
+        try {
+            String txt = http.getText(url + ".sha1").trim();
+            String sha1 = txt.split("\\s+")[0];
+            return sha1.matches("[0-9a-fA-F]{40}") ? sha1 : null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception e) {
+            return null;
         }
-        return out;
     }
 
     private int runForgeInstaller(Path javaExe, Path installerJar, Path workDirMc, Consumer<String> log) throws Exception {
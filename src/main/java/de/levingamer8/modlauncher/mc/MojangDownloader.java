@@ -1,10 +1,9 @@
 package de.levingamer8.modlauncher.mc;
 
 import com.google.gson.*;
+import de.levingamer8.modlauncher.core.HttpClientEx;
 
 import java.io.*;
-import java.net.URI;
-import java.net.http.*;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.time.Duration;
@@ -13,11 +12,10 @@ public final class MojangDownloader {
 
     private static final String MANIFEST_URL =
             "https://piston-meta.mojang.com/mc/game/version_manifest_v2.json";
+    /** Neue Versionen kommen ein paar Mal pro Woche; fehlende IDs werden ohnehin sofort nachgefragt. */
+    private static final Duration MANIFEST_TTL = Duration.ofHours(6);
 
-    private final HttpClient http = HttpClient.newBuilder()
-            .followRedirects(HttpClient.Redirect.ALWAYS)
-            .connectTimeout(Duration.ofSeconds(20))
-            .build();
+    private final HttpClientEx httpEx = new HttpClientEx();
 
     private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
 
@@ -28,17 +26,10 @@ public final class MojangDownloader {
 
         Files.createDirectories(vDir);
 
-        JsonObject manifest = getJson(MANIFEST_URL);
-        JsonArray versions = manifest.getAsJsonArray("versions");
-
-        String versionUrl = null;
-        for (JsonElement e : versions) {
-            JsonObject v = e.getAsJsonObject();
-            if (versionId.equals(v.get("id").getAsString())) {
-                versionUrl = v.get("url").getAsString();
-                break;
-            }
-        }
+        // Manifest aus dem Cache; fehlt die Version dort, ist sie evtl. neu -> einmal frisch nachfragen
+        MetadataCache meta = MetadataCache.of(sharedRoot);
+        String versionUrl = findVersionUrl(meta.get(MANIFEST_URL, MANIFEST_TTL), versionId);
+        if (versionUrl == null) versionUrl = findVersionUrl(meta.revalidate(MANIFEST_URL), versionId);
         if (versionUrl == null) throw new IllegalStateException("MC Version nicht gefunden: " + versionId);
 
         JsonObject versionJson = getJson(versionUrl);
@@ -49,13 +40,15 @@ public final class MojangDownloader {
     public Path ensureClientJar(Path sharedRoot, String versionId) throws Exception {
         Path vDir = sharedRoot.resolve("versions").resolve(versionId);
         Path vJar = vDir.resolve(versionId + ".jar");
-        if (Files.exists(vJar) && Files.size(vJar) > 0) return vJar;
 
         Path vJsonPath = ensureVersionJson(sharedRoot, versionId);
         JsonObject vJson = JsonParser.parseString(Files.readString(vJsonPath)).getAsJsonObject();
 
         JsonObject downloads = vJson.has("downloads") ? vJson.getAsJsonObject("downloads") : null;
         if (downloads == null || !downloads.has("client")) {
+            // ohne Prüfsumme bleibt nur: vorhanden = ok (z.B. von altem Forge-Installer erzeugt)
+            if (Files.exists(vJar) && Files.size(vJar) > 0) return vJar;
+
             // Wrapper-Version (Forge/Fabric) -> auf Vanilla weiterleiten
             String base = null;
 
@@ -79,15 +72,12 @@ public final class MojangDownloader {
             return ensureClientJar(sharedRoot, base);
         }
 
-        String url = downloads.getAsJsonObject("client").get("url").getAsString();
-        Files.createDirectories(vDir);
-        downloadTo(url, vJar);
+        ensureVerified(sharedRoot, vJar, downloads.getAsJsonObject("client"));
         return vJar;
     }
 
     public Path ensureAssetIndex(Path sharedRoot, String versionId) throws Exception {
         Path out = sharedRoot.resolve("assets").resolve("indexes").resolve(versionId + ".json");
-        if (Files.exists(out) && Files.size(out) > 0) return out;
 
         Path vJsonPath = ensureVersionJson(sharedRoot, versionId);
         JsonObject vJson = JsonParser.parseString(Files.readString(vJsonPath)).getAsJsonObject();
@@ -96,44 +86,55 @@ public final class MojangDownloader {
             throw new IllegalStateException("assetIndex fehlt in version json: " + versionId);
         }
 
-        JsonObject ai = vJson.getAsJsonObject("assetIndex");
-        String url = ai.get("url").getAsString();
-
-        Files.createDirectories(out.getParent());
-        HttpRequest req = HttpRequest.newBuilder(URI.create(url))
-                .timeout(Duration.ofSeconds(60))
-                .GET().build();
-        HttpResponse<String> resp = http.send(req, HttpResponse.BodyHandlers.ofString());
-        if (resp.statusCode() != 200) throw new IOException("HTTP " + resp.statusCode() + " für " + url);
-
-        Files.writeString(out, resp.body(), StandardCharsets.UTF_8);
+        ensureVerified(sharedRoot, out, vJson.getAsJsonObject("assetIndex"));
         return out;
     }
 
+    /**
+     * out gegen sha1/size aus dem Download-Eintrag der Version-JSON prüfen (warm: nur stat, siehe
+     * {@link VerifiedArtifacts}); fehlt die Datei oder ist sie kaputt (z.B. abgeschnitten nach Absturz), neu laden.
+     */
+    private void ensureVerified(Path sharedRoot, Path out, JsonObject download) throws Exception {
+        String sha1 = optSha1(download);
+        long size = download.has("size") ? download.get("size").getAsLong() : -1;
+
+        VerifiedArtifacts verified = VerifiedArtifacts.of(sharedRoot);
+        try {
+            if (verified.isValid(out, size, sha1)) return;
+
+            Files.createDirectories(out.getParent());
+            downloadTo(download.get("url").getAsString(), out, sha1);
+            if (size > 0 && Files.size(out) != size) {
+                throw new IOException("Größe passt nicht: " + out.getFileName()
+                        + " (erwartet " + size + ", ist " + Files.size(out) + ")");
+            }
+            verified.markVerified(out, sha1);
+        } finally {
+            verified.save();
+        }
+    }
 
 
-    private JsonObject getJson(String url) throws Exception {
-        HttpRequest req = HttpRequest.newBuilder(URI.create(url))
-                .timeout(Duration.ofSeconds(60))
-                .GET().build();
-        HttpResponse<String> resp = http.send(req, HttpResponse.BodyHandlers.ofString());
-        if (resp.statusCode() != 200) throw new IOException("HTTP " + resp.statusCode() + " für " + url);
-        return JsonParser.parseString(resp.body()).getAsJsonObject();
+
+    private static String findVersionUrl(String manifestJson, String versionId) {
+        JsonArray versions = JsonParser.parseString(manifestJson).getAsJsonObject().getAsJsonArray("versions");
+        for (JsonElement e : versions) {
+            JsonObject v = e.getAsJsonObject();
+            if (versionId.equals(v.get("id").getAsString())) return v.get("url").getAsString();
+        }
+        return null;
     }
 
-    private void downloadTo(String url, Path out) throws Exception {
-        Files.createDirectories(out.getParent());
-        Path tmp = out.resolveSibling(out.getFileName().toString() + ".part");
+    private JsonObject getJson(String url) throws Exception {
+        return JsonParser.parseString(httpEx.getText(url)).getAsJsonObject();
+    }
 
-        HttpRequest req = HttpRequest.newBuilder(URI.create(url))
-                .timeout(Duration.ofMinutes(10))
-                .GET().build();
-        HttpResponse<InputStream> resp = http.send(req, HttpResponse.BodyHandlers.ofInputStream());
-        if (resp.statusCode() != 200) throw new IOException("HTTP " + resp.statusCode() + " für " + url);
+    private void downloadTo(String url, Path out, String sha1) throws Exception {
+        // sha1 kommt aus der Version-JSON; wird beim Download mitgerechnet und geprüft
+        httpEx.downloadVerified(LibraryMirrors.forUrl(url, sha1), out, "SHA-1", sha1);
+    }
 
-        try (InputStream in = resp.body()) {
-            Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
-        }
-        Files.move(tmp, out, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    static String optSha1(JsonObject o) {
+        return o != null && o.has("sha1") ? o.get("sha1").getAsString() : null;
     }
 }
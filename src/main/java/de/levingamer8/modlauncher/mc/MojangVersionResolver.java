@@ -1,7 +1,9 @@
 package de.levingamer8.modlauncher.mc;
 
 import com.google.gson.*;
+import de.levingamer8.modlauncher.core.FileUtil;
 
+import java.io.IOException;
 import java.io.Reader;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
@@ -9,26 +11,106 @@ import java.util.*;
 
 public final class MojangVersionResolver {
 
-    private final Gson gson = new Gson();
+    /** Eine Version der inheritsFrom-Kette mit dem sha256 ihres JSONs (Cache-Schlüssel). */
+    private record ChainEntry(String id, String sha256) {}
+
+    /** Hochzählen, wenn sich merge() oder das Cache-Layout ändert – alte .merged.json werden dann neu gebaut. */
+    private static final int CACHE_FORMAT = 1;
+
     private final MojangDownloader dl = new MojangDownloader();
 
+    /**
+     * Version-JSON mit aufgelöster inheritsFrom-Kette.
+     * Das Ergebnis liegt als versions/<id>/<id>.merged.json neben dem Original, zusammen mit den Hashes
+     * aller JSONs der Kette – solange die sich nicht ändern, wird nur noch gehasht statt geparst und gemerged.
+     */
     public JsonObject resolveMergedVersionJson(Path sharedRoot, String versionId) throws Exception {
         // sorgt dafür, dass shared/versions/<id>/<id>.json existiert
         dl.ensureVersionJson(sharedRoot, versionId);
 
-        Path vJson = sharedRoot.resolve("versions").resolve(versionId).resolve(versionId + ".json");
-        JsonObject child = readJson(vJson);
+        Path cacheFile = sharedRoot.resolve("versions").resolve(versionId).resolve(versionId + ".merged.json");
+        JsonObject cached = readCached(sharedRoot, cacheFile);
+        if (cached != null) return cached;
+
+        List<ChainEntry> chain = new ArrayList<>();
+        JsonObject merged = resolve(sharedRoot, versionId, chain);
+        writeCache(cacheFile, chain, merged);
+        return merged;
+    }
+
+    private JsonObject resolve(Path sharedRoot, String versionId, List<ChainEntry> chain) throws Exception {
+        dl.ensureVersionJson(sharedRoot, versionId);
+
+        byte[] raw = Files.readAllBytes(versionJson(sharedRoot, versionId));
+        chain.add(new ChainEntry(versionId, sha256(raw)));
+        JsonObject child = JsonParser.parseString(new String(raw, StandardCharsets.UTF_8)).getAsJsonObject();
 
         if (child.has("inheritsFrom")) {
             String parentId = child.get("inheritsFrom").getAsString();
-            JsonObject parent = resolveMergedVersionJson(sharedRoot, parentId);
+            if (chain.stream().anyMatch(c -> c.id().equals(parentId))) {
+                throw new IllegalStateException("inheritsFrom-Zyklus bei " + versionId + " -> " + parentId);
+            }
+            JsonObject parent = resolve(sharedRoot, parentId, chain);
             return merge(parent, child);
         }
         return child;
     }
 
+    /** Gecachtes Ergebnis, wenn Format und jedes JSON der Kette (Hash) noch passen; sonst null. */
+    private JsonObject readCached(Path sharedRoot, Path cacheFile) {
+        if (!Files.exists(cacheFile)) return null;
+        try {
+            JsonObject root = readJson(cacheFile);
+            if (!root.has("format") || root.get("format").getAsInt() != CACHE_FORMAT) return null;
+            JsonArray chain = root.getAsJsonArray("chain");
+            if (chain == null || chain.isEmpty()) return null;
+            for (JsonElement e : chain) {
+                JsonObject c = e.getAsJsonObject();
+                Path p = versionJson(sharedRoot, c.get("id").getAsString());
+                if (!Files.exists(p)) return null;
+                if (!sha256(Files.readAllBytes(p)).equals(c.get("sha256").getAsString())) return null;
+            }
+            return root.getAsJsonObject("version");
+        } catch (Exception e) {
+            return null; // kaputter Cache -> neu mergen
+        }
+    }
+
+    private static void writeCache(Path cacheFile, List<ChainEntry> chain, JsonObject merged) {
+        JsonArray arr = new JsonArray();
+        for (ChainEntry c : chain) {
+            JsonObject o = new JsonObject();
+            o.addProperty("id", c.id());
+            o.addProperty("sha256", c.sha256());
+            arr.add(o);
+        }
+        JsonObject root = new JsonObject();
+        root.addProperty("format", CACHE_FORMAT);
+        root.add("chain", arr);
+        root.add("version", merged);
+
+        Path tmp = cacheFile.resolveSibling(cacheFile.getFileName() + ".tmp");
+        try {
+            Files.writeString(tmp, root.toString(), StandardCharsets.UTF_8);
+            FileUtil.atomicReplace(tmp, cacheFile);
+        } catch (IOException e) {
+            // nur ein Cache – dann wird beim nächsten Start eben neu gemerged
+            try { Files.deleteIfExists(tmp); } catch (IOException ignored) {}
+        }
+    }
+
+    private static Path versionJson(Path sharedRoot, String versionId) {
+        return sharedRoot.resolve("versions").resolve(versionId).resolve(versionId + ".json");
+    }
+
+    private static String sha256(byte[] data) {
+        return HexFormat.of().formatHex(FileUtil.newDigest("SHA-256").digest(data));
+    }
+
     private JsonObject merge(JsonObject parent, JsonObject child) {
-        JsonObject out = deepCopy(parent);
+        // flache Kopie reicht: die Elemente werden danach nirgends verändert, nur ersetzt
+        JsonObject out = new JsonObject();
+        for (Map.Entry<String, JsonElement> e : parent.entrySet()) out.add(e.getKey(), e.getValue());
 
         for (String k : List.of("id", "type", "mainClass", "assets", "jar")) {
             if (child.has(k)) out.add(k, child.get(k));
@@ -85,8 +167,4 @@ public final class MojangVersionResolver {
             return JsonParser.parseReader(r).getAsJsonObject();
         }
     }
-
-    private JsonObject deepCopy(JsonObject o) {
-        return JsonParser.parseString(gson.toJson(o)).getAsJsonObject();
-    }
 }
@@ -0,0 +1,137 @@
+package de.levingamer8.modlauncher.mc;
+
+import com.google.gson.*;
+import de.levingamer8.modlauncher.core.FileUtil;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Welche Dateien unter sharedRoot schon gegen ihren SHA-1 geprüft wurden.
+ * Pro Pfad: size + mtime zum Prüfzeitpunkt und der SHA-1. Solange Stat-Daten und erwarteter Hash passen,
+ * gilt die Datei als ok – ein warmer Start macht so nur ein stat pro Datei und hasht nichts.
+ *
+ * Benutzt von: LibraryService (Libraries + Natives, auch die von Fabric/Forge), MojangDownloader
+ * (Client-Jar, Asset-Index) und den Forge-Installern (Installer-Jar). Asset-Objekte haben ihr eigenes
+ * Bitmap (AssetInstaller), weil es dort tausende sind.
+ *
+ * Eine Instanz pro sharedRoot. Thread-safe.
+ */
+final class VerifiedArtifacts {
+
+    record Entry(long size, long mtime, String sha1) {}
+
+    private static final Map<Path, VerifiedArtifacts> SHARED = new ConcurrentHashMap<>();
+
+    private final Path root;
+    private final Path indexFile;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private volatile boolean dirty;
+
+    private VerifiedArtifacts(Path root) {
+        this.root = root;
+        this.indexFile = root.resolve(".verified-artifacts.json");
+        load();
+    }
+
+    static VerifiedArtifacts of(Path sharedRoot) {
+        return SHARED.computeIfAbsent(sharedRoot.toAbsolutePath().normalize(), VerifiedArtifacts::new);
+    }
+
+    /**
+     * Ist die Datei vorhanden und korrekt? size &lt;= 0 bzw. sha1 null = unbekannt.
+     * Ohne sha1 kann nur Existenz + Größe geprüft werden. Passt der Index nicht (neu, geändert),
+     * wird einmal gehasht und das Ergebnis gemerkt.
+     */
+    boolean isValid(Path file, long size, String sha1) throws IOException {
+        BasicFileAttributes a;
+        try {
+            a = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        if (!a.isRegularFile() || a.size() == 0) return false;
+        if (size > 0 && a.size() != size) return false; // abgeschnitten (z.B. Absturz beim alten Download)
+        if (sha1 == null || sha1.isBlank()) return true;
+
+        String want = sha1.toLowerCase(Locale.ROOT);
+        String key = key(file);
+        Entry e = entries.get(key);
+        if (e != null && e.size() == a.size() && e.mtime() == a.lastModifiedTime().toMillis() && want.equals(e.sha1())) {
+            return true;
+        }
+
+        if (!want.equals(FileUtil.sha1(file).toLowerCase(Locale.ROOT))) return false;
+        entries.put(key, new Entry(a.size(), a.lastModifiedTime().toMillis(), want));
+        dirty = true;
+        return true;
+    }
+
+    /**
+     * Wurde die Datei schon einmal geprüft und ist seitdem unverändert (size/mtime)? Für Fälle, in denen
+     * der erwartete Hash erst übers Netz kommt (Maven .sha1) – dann spart das den Request.
+     */
+    boolean isKnownGood(Path file) throws IOException {
+        Entry e = entries.get(key(file));
+        if (e == null) return false;
+        try {
+            BasicFileAttributes a = Files.readAttributes(file, BasicFileAttributes.class);
+            return a.isRegularFile() && e.size() == a.size() && e.mtime() == a.lastModifiedTime().toMillis();
+        } catch (NoSuchFileException ex) {
+            return false;
+        }
+    }
+
+    /** Nach einem Download, der den Hash schon geprüft hat -> nur Stat-Daten merken. */
+    void markVerified(Path file, String sha1) throws IOException {
+        if (sha1 == null || sha1.isBlank()) return;
+        BasicFileAttributes a = Files.readAttributes(file, BasicFileAttributes.class);
+        entries.put(key(file), new Entry(a.size(), a.lastModifiedTime().toMillis(), sha1.toLowerCase(Locale.ROOT)));
+        dirty = true;
+    }
+
+    /** Schreibt den Index (temp + rename), nur wenn sich etwas geändert hat. */
+    synchronized void save() throws IOException {
+        if (!dirty) return;
+        dirty = false;
+        Path tmp = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+        try {
+            FileUtil.ensureParent(indexFile);
+            JsonObject json = new JsonObject();
+            entries.forEach((k, e) -> {
+                JsonObject o = new JsonObject();
+                o.addProperty("size", e.size());
+                o.addProperty("mtime", e.mtime());
+                o.addProperty("sha1", e.sha1());
+                json.add(k, o);
+            });
+            Files.writeString(tmp, json.toString(), StandardCharsets.UTF_8);
+            FileUtil.atomicReplace(tmp, indexFile);
+        } catch (IOException e) {
+            dirty = true;
+            throw e;
+        }
+    }
+
+    private void load() {
+        if (!Files.exists(indexFile)) return;
+        try {
+            JsonObject read = JsonParser.parseString(Files.readString(indexFile, StandardCharsets.UTF_8)).getAsJsonObject();
+            for (Map.Entry<String, JsonElement> e : read.entrySet()) {
+                JsonObject o = e.getValue().getAsJsonObject();
+                entries.put(e.getKey(), new Entry(o.get("size").getAsLong(), o.get("mtime").getAsLong(), o.get("sha1").getAsString()));
+            }
+        } catch (IOException | RuntimeException ignored) {
+            // kaputter Index kostet nur einmal Hashen
+        }
+    }
+
+    private String key(Path file) {
+        return root.relativize(file.toAbsolutePath().normalize()).toString().replace('\\', '/');
+    }
+}
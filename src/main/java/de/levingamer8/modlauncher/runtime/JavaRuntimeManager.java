@@ -1,16 +1,13 @@
 package de.levingamer8.modlauncher.runtime;
 
+import de.levingamer8.modlauncher.core.FileUtil;
+import de.levingamer8.modlauncher.core.HttpClientEx;
 import fr.theshark34.openlauncherlib.LaunchException;
 
 import java.io.*;
-import java.net.URI;
-import java.net.http.*;
 import java.nio.file.*;
-import java.time.Duration;
 import java.util.Comparator;
 import java.util.function.Consumer;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
 
 public final class JavaRuntimeManager {
 
@@ -93,27 +90,10 @@ public final class JavaRuntimeManager {
                 + "/ga/windows/x64/jdk/hotspot/normal/eclipse";
 
         if (log != null) log.accept("[JAVA] Download: " + url);
-        HttpClient client = HttpClient.newBuilder()
-                .followRedirects(HttpClient.Redirect.ALWAYS)
-                .connectTimeout(Duration.ofSeconds(20))
-                .build();
-
-        HttpRequest req = HttpRequest.newBuilder(URI.create(url))
-                .timeout(Duration.ofMinutes(10))
-                .GET()
-                .build();
 
+        // über .part mit Resume: ein abgebrochener JDK-Download wird beim nächsten Start fortgesetzt
         try {
-            HttpResponse<InputStream> resp = client.send(req, HttpResponse.BodyHandlers.ofInputStream());
-            if (resp.statusCode() != 200) {
-                throw new LaunchException("Java Download fehlgeschlagen (HTTP " + resp.statusCode() + "): " + url);
-            }
-
-            // Stream -> Datei
-            try (InputStream in = resp.body()) {
-                Files.copy(in, targetZip, StandardCopyOption.REPLACE_EXISTING);
-            }
-
+            new HttpClientEx().downloadVerified(url, targetZip, "SHA-256", null);
         } catch (IOException | InterruptedException e) {
             throw new LaunchException("Java Download fehlgeschlagen: " + e.getMessage(), e);
         }
@@ -126,24 +106,11 @@ public final class JavaRuntimeManager {
             throw new LaunchException("Kann Zielordner nicht erstellen: " + outDir, e);
         }
 
-        try (ZipInputStream zis = new ZipInputStream(new BufferedInputStream(Files.newInputStream(zipFile)))) {
-            ZipEntry entry;
-            while ((entry = zis.getNextEntry()) != null) {
-                Path outPath = outDir.resolve(entry.getName()).normalize();
-                if (!outPath.startsWith(outDir)) {
-                    throw new LaunchException("ZipSlip erkannt: " + entry.getName());
-                }
-
-                if (entry.isDirectory()) {
-                    Files.createDirectories(outPath);
-                } else {
-                    Files.createDirectories(outPath.getParent());
-                    try (OutputStream os = new BufferedOutputStream(Files.newOutputStream(outPath))) {
-                        zis.transferTo(os);
-                    }
-                }
-                zis.closeEntry();
-            }
+        // ~5000 Einträge beim JDK -> parallel über ZipFile
+        try {
+            FileUtil.unzipSafe(zipFile, outDir);
+        } catch (SecurityException e) {
+            throw new LaunchException("ZipSlip erkannt: " + e.getMessage(), e);
         } catch (IOException e) {
             throw new LaunchException("Entpacken fehlgeschlagen: " + e.getMessage(), e);
         }
@@ -1,6 +1,9 @@
 package de.levingamer8.modlauncher.ui;
 
 import de.levingamer8.modlauncher.auth.MicrosoftMinecraftAuth;
+import de.levingamer8.modlauncher.core.CancellableTask;
+import de.levingamer8.modlauncher.core.DownloadProgress;
+import de.levingamer8.modlauncher.core.HttpTransport;
 import de.levingamer8.modlauncher.core.ManifestModels;
 import de.levingamer8.modlauncher.core.PackUpdater;
 import de.levingamer8.modlauncher.core.ProfileStore;
@@ -48,6 +51,8 @@ import javafx.scene.input.ClipboardContent;
 
 
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.awt.*;
 
 public class Controller {
@@ -57,6 +62,7 @@ public class Controller {
     @FXML private Button updateButton;
     @FXML private Button openFolderButton;
     @FXML private ProgressBar progressBar;
+    @FXML private Button cancelButton;
     @FXML private TextArea logArea;
     @FXML private Label statusLabel;
     @FXML private Button playButton;
@@ -83,6 +89,8 @@ public class Controller {
 
     private final ProfileStore profileStore = new ProfileStore();
     private final PackUpdater updater = new PackUpdater();
+    /** Läuft gerade ein Pack-Update? Nur auf dem FX-Thread lesen/schreiben. */
+    private CancellableTask<Void> runningUpdate;
 
     private volatile MicrosoftMinecraftAuth.MinecraftSession mcSession;
     private MicrosoftSessionStore msStore;
@@ -239,6 +247,10 @@ public class Controller {
         TextField url = new TextField(p.manifestUrl());
         TextField host = new TextField(p.serverHost() == null ? "" : p.serverHost());
         TextField port = new TextField(String.valueOf(p.serverPort()));
+        TextField threads = new TextField(p.downloadThreads() <= 0 ? "" : String.valueOf(p.downloadThreads()));
+        threads.setPromptText("auto");
+        TextField limit = new TextField(p.downloadLimitKbps() <= 0 ? "" : String.valueOf(p.downloadLimitKbps()));
+        limit.setPromptText("unbegrenzt");
         ComboBox<ProfileStore.JoinMode> joinMode = new ComboBox<>();
         joinMode.getItems().setAll(ProfileStore.JoinMode.values());
         joinMode.getSelectionModel().select(p.joinMode() == null ? ProfileStore.JoinMode.SERVERS_DAT : p.joinMode());
@@ -249,6 +261,8 @@ public class Controller {
         gp.addRow(r++, new Label("Server Host:"), host);
         gp.addRow(r++, new Label("Server Port:"), port);
         gp.addRow(r++, new Label("Join Mode:"), joinMode);
+        gp.addRow(r++, new Label("Downloads parallel:"), threads);
+        gp.addRow(r++, new Label("Limit (kbit/s):"), limit);
 
         ColumnConstraints c1 = new ColumnConstraints();
         c1.setMinWidth(110);
@@ -271,9 +285,15 @@ public class Controller {
             String newUrl = url.getText().trim();
             String newHost = host.getText().trim();
             int newPort;
+            int newThreads;
+            int newLimit;
 
             try {
                 newPort = Integer.parseInt(port.getText().trim());
+                String t = threads.getText().trim();
+                newThreads = t.isEmpty() ? 0 : Integer.parseInt(t);
+                String l = limit.getText().trim();
+                newLimit = l.isEmpty() ? 0 : Integer.parseInt(l);
             } catch (Exception e) {
                 return null; // wird unten als "kein result" behandelt
             }
@@ -285,7 +305,9 @@ public class Controller {
                     newUrl,
                     newHost.isEmpty() ? "" : newHost,
                     newPort,
-                    joinMode.getValue()
+                    joinMode.getValue(),
+                    Math.max(0, newThreads),
+                    Math.max(0, newLimit)
             );
         });
 
@@ -322,7 +344,9 @@ public class Controller {
                 p.manifestUrl(),
                 p.serverHost(),
                 p.serverPort(),
-                p.joinMode()
+                p.joinMode(),
+                p.downloadThreads(),
+                p.downloadLimitKbps()
         );
 
         profileStore.saveOrUpdateProfile(copy);
@@ -348,7 +372,9 @@ public class Controller {
                 "http://localhost:8080/pack/fabric-1.21.11/manifest.json",
                 "",
                 25565,
-                ProfileStore.JoinMode.SERVERS_DAT
+                ProfileStore.JoinMode.SERVERS_DAT,
+                0,
+                0
         );
 
         profileStore.saveOrUpdateProfile(p);
@@ -414,20 +440,95 @@ public class Controller {
         clearLog();
         appendLog("Update gestartet: " + manifestUrl);
 
-        Profile finalP = p;
+        // Statusmeldungen kommen vom Update-Thread; nur die letzte wird angezeigt
+        AtomicReference<String> pendingStatus = new AtomicReference<>();
+        Consumer<String> status = msg -> {
+            if (pendingStatus.getAndSet(msg) == null) {
+                Platform.runLater(() -> statusLabel.setText(pendingStatus.getAndSet(null)));
+            }
+        };
+
+        CancellableTask<Void> task = updater.updateAsync(p, profileStore, msg -> {
+            status.accept(msg);
+            appendLog(msg);
+        }, snapshot -> {
+            status.accept(DownloadProgress.format(snapshot));
+            showProgress(snapshot);
+        });
+        runningUpdate = task;
+        setCancelVisible(true);
+
+        // erst reagieren, wenn der Thread wirklich fertig ist (Staging aufgeräumt, Lock frei)
+        task.stopped().thenRun(() -> Platform.runLater(() -> {
+            runningUpdate = null;
+            setCancelVisible(false);
+            if (task.isCancelled()) {
+                statusLabel.setText("Abgebrochen");
+                appendLog("Update abgebrochen.");
+                setUiBusy(false);
+                return;
+            }
+            if (task.isCompletedExceptionally()) {
+                statusLabel.setText("Fehler");
+                Throwable ex = task.exceptionNow();
+                String details = formatException(ex);
+                appendLog("FEHLER: " + details);
+                showError(details);
+                updateAccountUi();
+                setUiBusy(false);
+                progressBar.setProgress(0);
+                ex.printStackTrace();
+                return;
+            }
+            statusLabel.setText("Fertig");
+            appendLog("Update fertig.");
+            setUiBusy(false);
+            progressBar.setProgress(1);
+        }));
+    }
+
+    @FXML
+    public void onCancel() {
+        CancellableTask<?> task = runningUpdate;
+        if (task == null) return;
+        if (cancelButton != null) cancelButton.setDisable(true);
+        statusLabel.setText("Breche ab...");
+        task.cancel(true);
+    }
+
+    private void setCancelVisible(boolean visible) {
+        if (cancelButton == null) return;
+        cancelButton.setDisable(false);
+        cancelButton.setVisible(visible);
+        cancelButton.setManaged(visible);
+    }
+
+
+    @FXML
+    private void onRollback() {
+        Profile p = profileCombo.getValue();
+        if (p == null) {
+            showError("Kein Profil ausgewählt.");
+            return;
+        }
+
+        Alert a = new Alert(Alert.AlertType.CONFIRMATION);
+        a.setTitle("Rollback");
+        a.setHeaderText("Auf die vorherige Modpack-Version zurücksetzen?");
+        a.setContentText(p.name());
+
+        var res = a.showAndWait();
+        if (res.isEmpty() || res.get() != ButtonType.OK) return;
+
+        setUiBusy(true);
+        clearLog();
 
         Task<Void> task = new Task<>() {
             @Override
             protected Void call() throws Exception {
-                updater.update(finalP, profileStore, (msg) -> {
+                updater.rollback(p, profileStore, (msg) -> {
                     updateMessage(msg);
                     appendLog(msg);
-                }, (done, total) -> {
-                    updateProgress(done, total);
-                    double prog = total <= 0 ? -1 : (double) done / (double) total;
-                    Platform.runLater(() -> progressBar.setProgress(
-                            prog < 0 ? ProgressIndicator.INDETERMINATE_PROGRESS : prog
-                    ));
                 });
                 return null;
             }
@@ -438,30 +539,24 @@ public class Controller {
         task.setOnSucceeded(e -> {
             statusLabel.textProperty().unbind();
             statusLabel.setText("Fertig");
-            appendLog("Update fertig.");
+            appendLog("Rollback fertig.");
             setUiBusy(false);
-            progressBar.setProgress(1);
         });
 
         task.setOnFailed(e -> {
             statusLabel.textProperty().unbind();
             statusLabel.setText("Fehler");
-            Throwable ex = task.getException();
-            String details = formatException(ex);
+            String details = formatException(task.getException());
             appendLog("FEHLER: " + details);
             showError(details);
-            updateAccountUi();
             setUiBusy(false);
-            progressBar.setProgress(0);
-            if (ex != null) ex.printStackTrace();
         });
 
-        Thread t = new Thread(task, "pack-updater");
+        Thread t = new Thread(task, "pack-rollback");
         t.setDaemon(true);
         t.start();
     }
 
-
     @FXML
     public void onPlay() {
 
@@ -508,6 +603,7 @@ public class Controller {
                 Path runtimeDir = profileStore.instanceRuntimeDir(finalP.name());
 
                 MinecraftLauncherService launcher = new MinecraftLauncherService();
+                HttpTransport.shared().limiter().setLimitKbps(finalP.downloadLimitKbps());
 
 
                 MinecraftLauncherService.AuthSession auth = new MinecraftLauncherService.AuthSession(
@@ -529,7 +625,11 @@ public class Controller {
                                 4096
                         ),
                         auth,
-                        msg -> appendLog(msg)
+                        msg -> appendLog(msg),
+                        snapshot -> {
+                            updateMessage(DownloadProgress.format(snapshot));
+                            showProgress(snapshot);
+                        }
                 );
 
                 updateMessage("MC gestartet.");
@@ -596,6 +696,14 @@ public class Controller {
         }
     }
 
+    /** Wird vom Download-Thread aufgerufen -> auf den FX-Thread wechseln. */
+    private void showProgress(DownloadProgress.Snapshot snapshot) {
+        double prog = snapshot.fraction();
+        Platform.runLater(() -> progressBar.setProgress(
+                prog < 0 ? ProgressIndicator.INDETERMINATE_PROGRESS : prog
+        ));
+    }
+
     private void setUiBusy(boolean busy) {
         // Buttons, die während Busy wirklich gesperrt werden sollen
         Node[] nodes = {
@@ -835,14 +943,8 @@ public class Controller {
 
 
     private ManifestModels.Manifest fetchManifest(String url) throws Exception {
-        var om = new com.fasterxml.jackson.databind.ObjectMapper();
-        var client = java.net.http.HttpClient.newBuilder()
-                .followRedirects(java.net.http.HttpClient.Redirect.ALWAYS)
-                .build();
-        var req = java.net.http.HttpRequest.newBuilder(java.net.URI.create(url)).GET().build();
-        var resp = client.send(req, java.net.http.HttpResponse.BodyHandlers.ofString());
-        if (resp.statusCode() != 200) throw new RuntimeException("Manifest HTTP " + resp.statusCode());
-        return om.readValue(resp.body(), ManifestModels.Manifest.class);
+        // gleicher Cache wie beim Update -> direkt nach Update kein zweiter Download/Parse; Play braucht nur den Kopf
+        return updater.fetchManifestHead(profileStore, url, this::appendLog).manifest();
     }
 
     private void updateAccountUi() {
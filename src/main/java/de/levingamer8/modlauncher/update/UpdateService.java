@@ -1,17 +1,13 @@
 package de.levingamer8.modlauncher.update;
 
 import com.google.gson.*;
+import de.levingamer8.modlauncher.core.HttpTransport;
 import java.io.*;
-import java.net.URI;
 import java.net.http.*;
 import java.nio.file.*;
-import java.time.Duration;
 
 public final class UpdateService {
-    private final HttpClient http = HttpClient.newBuilder()
-            .followRedirects(HttpClient.Redirect.ALWAYS)
-            .connectTimeout(Duration.ofSeconds(10))
-            .build();
+    private final HttpTransport http = HttpTransport.shared();
 
     private final String owner;
     private final String repo;
@@ -23,11 +19,11 @@ public final class UpdateService {
 
     public UpdateInfo fetchLatest() throws IOException, InterruptedException {
         String url = "https://api.github.com/repos/" + owner + "/" + repo + "/releases/latest";
-        HttpRequest req = HttpRequest.newBuilder(URI.create(url))
+        HttpRequest req = http.request(url)
                 .header("Accept", "application/vnd.github+json")
                 .build();
 
-        HttpResponse<String> res = http.send(req, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> res = http.sendText(req);
         if (res.statusCode() != 200) throw new IOException("GitHub API error: " + res.statusCode());
 
         JsonObject root = JsonParser.parseString(res.body()).getAsJsonObject();
@@ -49,9 +45,12 @@ public final class UpdateService {
 
     public Path downloadToTemp(String url, String fileName) throws IOException, InterruptedException {
         Path target = Paths.get(System.getProperty("java.io.tmpdir")).resolve(fileName);
-        HttpRequest req = HttpRequest.newBuilder(URI.create(url)).build();
+        HttpRequest req = http.request(url).timeout(HttpTransport.DOWNLOAD_TIMEOUT).build();
         HttpResponse<InputStream> res = http.send(req, HttpResponse.BodyHandlers.ofInputStream());
-        if (res.statusCode() != 200) throw new IOException("Download failed: " + res.statusCode());
+        if (res.statusCode() != 200) {
+            res.body().close();
+            throw new IOException("Download failed: " + res.statusCode());
+        }
 
         try (InputStream in = res.body();
              OutputStream out = Files.newOutputStream(target, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
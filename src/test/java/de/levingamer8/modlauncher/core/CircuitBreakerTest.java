@@ -0,0 +1,96 @@
+package de.levingamer8.modlauncher.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    private static final String HOST = "example.org";
+
+    private static void fail(CircuitBreaker b, int times) {
+        for (int i = 0; i < times; i++) b.failure(HOST);
+    }
+
+    @Test
+    void staysClosedBelowThreshold() throws Exception {
+        CircuitBreaker b = new CircuitBreaker(3, Duration.ofMinutes(1));
+        fail(b, 2);
+
+        assertFalse(b.check(HOST));
+        assertFalse(b.isOpen(HOST));
+    }
+
+    @Test
+    void opensAtThreshold() {
+        CircuitBreaker b = new CircuitBreaker(3, Duration.ofMinutes(1));
+        fail(b, 3);
+
+        assertTrue(b.isOpen(HOST));
+        assertThrows(CircuitBreaker.OpenException.class, () -> b.check(HOST));
+    }
+
+    @Test
+    void successResetsCount() throws Exception {
+        CircuitBreaker b = new CircuitBreaker(3, Duration.ofMinutes(1));
+        fail(b, 2);
+        b.success(HOST);
+        fail(b, 2);
+
+        assertFalse(b.check(HOST));
+    }
+
+    @Test
+    void hostsAreIndependentAndCaseInsensitive() throws Exception {
+        CircuitBreaker b = new CircuitBreaker(1, Duration.ofMinutes(1));
+        b.failure("Example.ORG");
+
+        assertTrue(b.isOpen(HOST));
+        assertFalse(b.check("other.org"));
+    }
+
+    @Test
+    void halfOpenLetsExactlyOneProbeThrough() throws Exception {
+        CircuitBreaker b = new CircuitBreaker(1, Duration.ZERO);
+        b.failure(HOST);
+
+        assertTrue(b.check(HOST));
+        assertThrows(CircuitBreaker.OpenException.class, () -> b.check(HOST));
+    }
+
+    @Test
+    void successfulProbeCloses() throws Exception {
+        CircuitBreaker b = new CircuitBreaker(1, Duration.ZERO);
+        b.failure(HOST);
+        assertTrue(b.check(HOST));
+
+        b.success(HOST);
+        assertFalse(b.check(HOST));
+        assertFalse(b.check(HOST));
+    }
+
+    @Test
+    void failedProbeOpensAgain() throws Exception {
+        CircuitBreaker b = new CircuitBreaker(1, Duration.ofMillis(100));
+        b.failure(HOST);
+        Thread.sleep(150);
+        assertTrue(b.check(HOST));
+
+        b.failure(HOST);
+        assertTrue(b.isOpen(HOST));
+        assertThrows(CircuitBreaker.OpenException.class, () -> b.check(HOST));
+    }
+
+    @Test
+    void abortedProbeFreesTheSlot() throws Exception {
+        CircuitBreaker b = new CircuitBreaker(1, Duration.ZERO);
+        b.failure(HOST);
+        assertTrue(b.check(HOST));
+
+        // z.B. Interrupt während des Requests: weder Erfolg noch Fehler
+        b.abort(HOST);
+        assertTrue(b.check(HOST));
+    }
+}
@@ -0,0 +1,119 @@
+package de.levingamer8.modlauncher.core;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.levingamer8.modlauncher.core.ManifestModels.Manifest;
+import de.levingamer8.modlauncher.core.ManifestModels.ManifestFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ManifestReaderTest {
+
+    private static final String HEAD = """
+            "packId": "test-pack", "packName": "Test", "packVersion": 7, "minecraft": "1.20.1",
+            "loader": {"type": "fabric", "version": "0.16.0"}, "baseUrl": "https://example.org/pack/"
+            """;
+    private static final String OVERRIDES = """
+            "overrides": {"url": "https://example.org/pack/overrides.zip", "sha256": "%s"}
+            """.formatted("c".repeat(64));
+    private static final String FILES = """
+            "files": [
+              {"path": "mods/a.jar", "sha256": "%s", "size": 10, "side": "client",
+               "download": {"type": "url", "url": "https://example.org/a.jar"}},
+              {"path": "mods/b.jar", "sha256": "%s", "size": 20, "side": "both",
+               "download": {"type": "url", "url": "https://example.org/b.jar", "mirrors": ["https://mirror.org/b.jar"]}}
+            ]
+            """.formatted("a".repeat(64), "b".repeat(64));
+
+    private final ObjectMapper om = new ObjectMapper();
+
+    @TempDir
+    Path dir;
+
+    private Path manifest(String... parts) throws IOException {
+        Path p = dir.resolve("manifest.json");
+        Files.writeString(p, "{" + String.join(",", parts) + "}", StandardCharsets.UTF_8);
+        return p;
+    }
+
+    private List<ManifestFile> files(Path p) throws IOException {
+        List<ManifestFile> out = new ArrayList<>();
+        ManifestReader.forEachFile(om, p, out::add);
+        return out;
+    }
+
+    @Test
+    void overridesAfterFiles() throws Exception {
+        Path p = manifest(HEAD, FILES, OVERRIDES);
+
+        Manifest m = ManifestReader.readHeader(om, p);
+        assertEquals("test-pack", m.packId());
+        assertEquals(7, m.packVersion());
+        assertNull(m.files());
+        assertNotNull(m.overrides());
+        assertEquals("c".repeat(64), m.overrides().sha256());
+
+        List<ManifestFile> fs = files(p);
+        assertEquals(List.of("mods/a.jar", "mods/b.jar"), fs.stream().map(ManifestFile::path).toList());
+        assertEquals(List.of("https://example.org/b.jar", "https://mirror.org/b.jar"), fs.get(1).download().urls());
+    }
+
+    @Test
+    void overridesBeforeFiles() throws Exception {
+        Path p = manifest(OVERRIDES, HEAD, FILES);
+
+        Manifest m = ManifestReader.readHeader(om, p);
+        assertNotNull(m.overrides());
+        assertEquals("fabric", m.loader().type());
+        assertEquals(2, files(p).size());
+    }
+
+    @Test
+    void filesNull() throws Exception {
+        Path p = manifest(HEAD, "\"files\": null", OVERRIDES);
+
+        Manifest m = ManifestReader.readHeader(om, p);
+        assertNull(m.files());
+        assertNotNull(m.overrides());
+        assertTrue(files(p).isEmpty());
+    }
+
+    @Test
+    void filesMissing() throws Exception {
+        Path p = manifest(HEAD);
+
+        assertEquals("test-pack", ManifestReader.readHeader(om, p).packId());
+        assertTrue(files(p).isEmpty());
+    }
+
+    @Test
+    void filesNotAnArray() throws Exception {
+        Path p = manifest(HEAD, "\"files\": {\"path\": \"mods/a.jar\"}");
+
+        assertThrows(IOException.class, () -> files(p));
+    }
+
+    @Test
+    void notAnObject() throws Exception {
+        Path p = dir.resolve("manifest.json");
+        Files.writeString(p, "[]", StandardCharsets.UTF_8);
+
+        assertThrows(IOException.class, () -> ManifestReader.readHeader(om, p));
+        assertThrows(IOException.class, () -> files(p));
+    }
+
+    @Test
+    void unknownHeaderFieldFails() throws Exception {
+        Path p = manifest(HEAD, "\"surprise\": 1", FILES);
+
+        assertThrows(IOException.class, () -> ManifestReader.readHeader(om, p));
+    }
+}
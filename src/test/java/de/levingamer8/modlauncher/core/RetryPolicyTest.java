@@ -0,0 +1,110 @@
+package de.levingamer8.modlauncher.core;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.http.HttpHeaders;
+import java.nio.file.AccessDeniedException;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RetryPolicyTest {
+
+    private final RetryPolicy fast = new RetryPolicy(3, Duration.ofMillis(1), Duration.ofMillis(2));
+
+    @AfterEach
+    void clearInterrupt() {
+        Thread.interrupted();
+    }
+
+    private static HttpStatusException status(int code) {
+        return new HttpStatusException(code, "https://example.org/x", null);
+    }
+
+    private static HttpHeaders headers(String retryAfter) {
+        return HttpHeaders.of(Map.of("Retry-After", List.of(retryAfter)), (k, v) -> true);
+    }
+
+    @Test
+    void classifiesFailures() {
+        assertTrue(RetryPolicy.isRetryable(new IOException("connection reset")));
+        assertTrue(RetryPolicy.isRetryable(status(503)));
+        assertTrue(RetryPolicy.isRetryable(status(429)));
+        assertFalse(RetryPolicy.isRetryable(status(404)));
+        assertFalse(RetryPolicy.isRetryable(status(501)));
+        assertFalse(RetryPolicy.isRetryable(new CircuitBreaker.OpenException("example.org", 1000)));
+        assertFalse(RetryPolicy.isRetryable(new AccessDeniedException("/x")));
+        assertFalse(RetryPolicy.isRetryable(new InterruptedIOException()));
+        assertFalse(RetryPolicy.isRetryable(new IOException("wrapped", new InterruptedException())));
+    }
+
+    @Test
+    void retriesTransientUpToMaxAttempts() {
+        AtomicInteger calls = new AtomicInteger();
+        assertThrows(HttpStatusException.class, () -> fast.execute(() -> {
+            calls.incrementAndGet();
+            throw status(503);
+        }));
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    void returnsAfterTransientFailure() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        String result = fast.execute(() -> {
+            if (calls.incrementAndGet() < 2) throw new IOException("reset");
+            return "ok";
+        });
+        assertEquals("ok", result);
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void doesNotRetryPermanentFailure() {
+        AtomicInteger calls = new AtomicInteger();
+        assertThrows(HttpStatusException.class, () -> fast.execute(() -> {
+            calls.incrementAndGet();
+            throw status(404);
+        }));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void givesUpOnLongRetryAfter() {
+        AtomicInteger calls = new AtomicInteger();
+        assertThrows(HttpStatusException.class, () -> fast.execute(() -> {
+            calls.incrementAndGet();
+            throw new HttpStatusException(503, "https://example.org/x", Duration.ofMinutes(5));
+        }));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void parsesRetryAfterSeconds() {
+        assertEquals(Duration.ofSeconds(7), RetryPolicy.parseRetryAfter(headers("7")));
+        assertEquals(Duration.ZERO, RetryPolicy.parseRetryAfter(headers("-3")));
+    }
+
+    @Test
+    void parsesRetryAfterDate() {
+        String at = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC).plusSeconds(30));
+        Duration d = RetryPolicy.parseRetryAfter(headers(at));
+        assertNotNull(d);
+        assertTrue(d.compareTo(Duration.ofSeconds(25)) > 0 && d.compareTo(Duration.ofSeconds(31)) <= 0, d.toString());
+    }
+
+    @Test
+    void ignoresMissingOrBrokenRetryAfter() {
+        assertNull(RetryPolicy.parseRetryAfter(HttpHeaders.of(Map.of(), (k, v) -> true)));
+        assertNull(RetryPolicy.parseRetryAfter(headers("bald")));
+    }
+}
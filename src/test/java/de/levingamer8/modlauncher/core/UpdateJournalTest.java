@@ -0,0 +1,126 @@
+package de.levingamer8.modlauncher.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UpdateJournalTest {
+
+    private static final String SHA_A = "a".repeat(64);
+    private static final String SHA_B = "b".repeat(64);
+    private static final String SHA_C = "c".repeat(64);
+
+    @TempDir
+    Path instanceDir;
+
+    private Path journalFile() {
+        return instanceDir.resolve(".state").resolve("update.journal");
+    }
+
+    private void writeJournal(String content) throws Exception {
+        Files.createDirectories(journalFile().getParent());
+        Files.writeString(journalFile(), content, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void resumesSameVersion() throws Exception {
+        writeJournal("begin\tpack\t3\tS1\nstaged\t" + SHA_A + "\tmods/a.jar\noverrides\t" + SHA_C + "\n");
+
+        try (UpdateJournal j = UpdateJournal.open(instanceDir, "pack", 3)) {
+            assertEquals("S1", j.stagingId().orElseThrow());
+            assertTrue(j.isStaged("mods/a.jar", SHA_A));
+            assertFalse(j.isStaged("mods/a.jar", SHA_B));
+            assertTrue(j.overridesApplied(SHA_C));
+        }
+    }
+
+    @Test
+    void tornLastLineIsIgnored() throws Exception {
+        // Absturz mitten in "staged <sha> mods/b.jar"
+        writeJournal("begin\tpack\t3\tS1\nstaged\t" + SHA_A + "\tmods/a.jar\nstaged\t" + SHA_B + "\tmods/b");
+
+        try (UpdateJournal j = UpdateJournal.open(instanceDir, "pack", 3)) {
+            assertEquals(1, j.stagedCount());
+            assertTrue(j.isStaged("mods/a.jar", SHA_A));
+            assertFalse(j.isStaged("mods/b", SHA_B));
+        }
+    }
+
+    @Test
+    void appendAfterTornLineStartsOnNewLine() throws Exception {
+        writeJournal("begin\tpack\t3\tS1\nstaged\t" + SHA_A + "\tmods/a.jar\nstaged\t" + SHA_B + "\tmods/b");
+
+        try (UpdateJournal j = UpdateJournal.open(instanceDir, "pack", 3)) {
+            j.begin("pack", 3, "S1");
+            j.staged("mods/c.jar", SHA_C);
+        }
+
+        try (UpdateJournal j = UpdateJournal.open(instanceDir, "pack", 3)) {
+            assertTrue(j.isStaged("mods/a.jar", SHA_A));
+            assertTrue(j.isStaged("mods/c.jar", SHA_C));
+            assertFalse(j.isStaged("mods/b", SHA_B));
+        }
+    }
+
+    @Test
+    void otherVersionIsDiscarded() throws Exception {
+        writeJournal("begin\tpack\t2\tS1\nstaged\t" + SHA_A + "\tmods/a.jar\n");
+
+        try (UpdateJournal j = UpdateJournal.open(instanceDir, "pack", 3)) {
+            assertTrue(j.stagingId().isEmpty());
+            assertEquals(0, j.stagedCount());
+        }
+        assertFalse(Files.exists(journalFile()));
+    }
+
+    @Test
+    void otherPackIsDiscarded() throws Exception {
+        writeJournal("begin\tother\t3\tS1\nstaged\t" + SHA_A + "\tmods/a.jar\n");
+
+        try (UpdateJournal j = UpdateJournal.open(instanceDir, "pack", 3)) {
+            assertTrue(j.stagingId().isEmpty());
+            assertFalse(j.isStaged("mods/a.jar", SHA_A));
+        }
+        assertFalse(Files.exists(journalFile()));
+    }
+
+    @Test
+    void brokenHeaderIsDiscarded() throws Exception {
+        writeJournal("begin\tpack\t3");
+
+        try (UpdateJournal j = UpdateJournal.open(instanceDir, "pack", 3)) {
+            assertTrue(j.stagingId().isEmpty());
+        }
+        assertFalse(Files.exists(journalFile()));
+    }
+
+    @Test
+    void newStagingIdStartsFresh() throws Exception {
+        writeJournal("begin\tpack\t3\tS1\nstaged\t" + SHA_A + "\tmods/a.jar\n");
+
+        try (UpdateJournal j = UpdateJournal.open(instanceDir, "pack", 3)) {
+            j.begin("pack", 3, "S2");
+            assertFalse(j.isStaged("mods/a.jar", SHA_A));
+        }
+
+        try (UpdateJournal j = UpdateJournal.open(instanceDir, "pack", 3)) {
+            assertEquals("S2", j.stagingId().orElseThrow());
+            assertEquals(0, j.stagedCount());
+        }
+    }
+
+    @Test
+    void commitRemovesJournal() throws Exception {
+        try (UpdateJournal j = UpdateJournal.open(instanceDir, "pack", 3)) {
+            j.begin("pack", 3, "S1");
+            j.staged("mods/a.jar", SHA_A);
+            j.commit();
+        }
+        assertFalse(Files.exists(journalFile()));
+    }
+}